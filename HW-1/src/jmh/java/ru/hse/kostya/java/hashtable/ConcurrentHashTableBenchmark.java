@@ -0,0 +1,92 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares throughput of ConcurrentHashTable with HashTable under a single lock.
+ * Run with ./gradlew jmh, the same operation is measured in one thread and in four threads
+ * Every thread puts a quarter of operations and gets the rest on keys of its own,
+ *      so the difference shows cost of locking rather than of contention on keys
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConcurrentHashTableBenchmark {
+
+    /**
+     * Number of keys of every thread, power of two.
+     */
+    private static final int KEYS_PER_THREAD = 1 << 14;
+
+    @Param({"ConcurrentHashTable", "SynchronizedHashTable"})
+    public String implementation;
+
+    private ConcurrentHashTable concurrent;
+    private HashTable locked;
+
+    /**
+     * Keys of one thread and position in them.
+     */
+    @State(Scope.Thread)
+    public static class ThreadKeys {
+        private String[] keys;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            keys = new String[KEYS_PER_THREAD];
+            for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                keys[i] = Integer.toString(threadParams.getThreadIndex() * KEYS_PER_THREAD + i);
+            }
+        }
+
+        private String next() {
+            cursor = (cursor + 1) & (KEYS_PER_THREAD - 1);
+            return keys[cursor];
+        }
+
+        private boolean isPut() {
+            return (cursor & 3) == 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        concurrent = new ConcurrentHashTable();
+        locked = new HashTable();
+    }
+
+    private String operation(ThreadKeys threadKeys) {
+        String key = threadKeys.next();
+        if (implementation.equals("ConcurrentHashTable")) {
+            return threadKeys.isPut() ? concurrent.put(key, key) : concurrent.get(key);
+        }
+        synchronized (locked) {
+            return threadKeys.isPut() ? locked.put(key, key) : locked.get(key);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String oneThread(ThreadKeys threadKeys) {
+        return operation(threadKeys);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String fourThreads(ThreadKeys threadKeys) {
+        return operation(threadKeys);
+    }
+}
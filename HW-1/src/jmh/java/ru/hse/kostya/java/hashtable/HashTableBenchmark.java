@@ -0,0 +1,236 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares HashTable with java.util.HashMap.
+ * Run with ./gradlew jmh, allocation rates are reported by GC profiler
+ * Every operation works with key chosen from precomputed sequence,
+ *      so that choosing a key costs nothing
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HashTableBenchmark {
+
+    /**
+     * Length of the sequence of key indices, power of two.
+     */
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    /**
+     * How keys are made and chosen.
+     */
+    public enum Distribution {
+        /**
+         * Distinct keys, every key is equally likely.
+         */
+        UNIFORM,
+
+        /**
+         * Distinct keys, few keys get most of operations.
+         */
+        SKEWED,
+
+        /**
+         * Keys with equal hashCode, every key is equally likely.
+         */
+        COLLIDING
+    }
+
+    /**
+     * Common interface of compared dictionaries.
+     */
+    private interface Dictionary {
+        String put(String key, String value);
+
+        String get(String key);
+
+        String remove(String key);
+
+        boolean contains(String key);
+    }
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"UNIFORM", "SKEWED", "COLLIDING"})
+    public Distribution distribution;
+
+    @Param({"HashTable", "HashMap"})
+    public String implementation;
+
+    /**
+     * Keys present in dictionary.
+     */
+    private String[] keys;
+
+    /**
+     * Keys absent in dictionary, made the same way as present ones.
+     */
+    private String[] missingKeys;
+
+    /**
+     * Indices of keys used by consecutive operations.
+     */
+    private int[] sequence;
+    private int cursor;
+    private Dictionary dictionary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] allKeys = makeKeys(2 * size);
+        keys = new String[size];
+        missingKeys = new String[size];
+        System.arraycopy(allKeys, 0, keys, 0, size);
+        System.arraycopy(allKeys, size, missingKeys, 0, size);
+
+        var random = new Random(16);
+        sequence = new int[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            if (distribution == Distribution.SKEWED) {
+                //cube of uniform number piles up near zero
+                double uniform = random.nextDouble();
+                sequence[i] = (int) (size * uniform * uniform * uniform);
+            } else {
+                sequence[i] = random.nextInt(size);
+            }
+        }
+
+        dictionary = newDictionary();
+        for (String key : keys) {
+            dictionary.put(key, key);
+        }
+    }
+
+    private String[] makeKeys(int count) {
+        var random = new Random(1);
+        var result = new String[count];
+        if (distribution != Distribution.COLLIDING) {
+            for (int i = 0; i < count; i++) {
+                result[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+            }
+            return result;
+        }
+
+        //"Aa" and "BB" have equal hashCode, so do all their concatenations of same length
+        int blocks = 32 - Integer.numberOfLeadingZeros(count - 1);
+        for (int i = 0; i < count; i++) {
+            var builder = new StringBuilder(2 * blocks);
+            for (int bit = 0; bit < blocks; bit++) {
+                builder.append((i & (1 << bit)) == 0 ? "Aa" : "BB");
+            }
+            result[i] = builder.toString();
+        }
+        return result;
+    }
+
+    private Dictionary newDictionary() {
+        if (implementation.equals("HashMap")) {
+            final var hashMap = new HashMap<String, String>();
+            return new Dictionary() {
+                @Override
+                public String put(String key, String value) {
+                    return hashMap.put(key, value);
+                }
+
+                @Override
+                public String get(String key) {
+                    return hashMap.get(key);
+                }
+
+                @Override
+                public String remove(String key) {
+                    return hashMap.remove(key);
+                }
+
+                @Override
+                public boolean contains(String key) {
+                    return hashMap.containsKey(key);
+                }
+            };
+        }
+        final var hashTable = new HashTable();
+        return new Dictionary() {
+            @Override
+            public String put(String key, String value) {
+                return hashTable.put(key, value);
+            }
+
+            @Override
+            public String get(String key) {
+                return hashTable.get(key);
+            }
+
+            @Override
+            public String remove(String key) {
+                return hashTable.remove(key);
+            }
+
+            @Override
+            public boolean contains(String key) {
+                return hashTable.contains(key);
+            }
+        };
+    }
+
+    private int nextIndex() {
+        cursor = (cursor + 1) & (SEQUENCE_LENGTH - 1);
+        return sequence[cursor];
+    }
+
+    @Benchmark
+    public String getHit() {
+        return dictionary.get(keys[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean containsMiss() {
+        return dictionary.contains(missingKeys[nextIndex()]);
+    }
+
+    /**
+     * Replaces value of present key, size does not change.
+     */
+    @Benchmark
+    public String putExisting() {
+        String key = keys[nextIndex()];
+        return dictionary.put(key, key);
+    }
+
+    /**
+     * Removes present key and puts it back, size does not change.
+     */
+    @Benchmark
+    public String removeAndPut() {
+        String key = keys[nextIndex()];
+        dictionary.remove(key);
+        return dictionary.put(key, key);
+    }
+
+    /**
+     * Fills empty dictionary with all keys, including every rehashing.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object fill() {
+        Dictionary filled = newDictionary();
+        for (String key : keys) {
+            filled.put(key, key);
+        }
+        return filled;
+    }
+}
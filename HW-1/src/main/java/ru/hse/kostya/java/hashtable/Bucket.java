@@ -0,0 +1,51 @@
+package ru.hse.kostya.java.hashtable;
+
+/**
+ * Storage for elements of one HashTable bucket.
+ * Keys in Bucket are unique
+ * Iteration order is unspecified
+ */
+public interface Bucket extends Iterable<PairStringString> {
+
+    int size();
+
+    /**
+     * Checks whether there are no elements in Bucket.
+     */
+    boolean empty();
+
+    /**
+     * Checks whether given key appears in Bucket.
+     */
+    boolean contains(String key);
+
+    /**
+     * Returns values stored with given key, if any.
+     * Null otherwise
+     */
+    String get(String key);
+
+    /**
+     * Modifies element with same key, if any.
+     * Adds new element otherwise
+     * @return previous value stored with key, or null if there was none
+     */
+    String put(String key, String value);
+
+    /**
+     * Remove element with same key, if any.
+     * @return removed value, or null if there was no such key
+     */
+    String remove(String key);
+
+    /**
+     * Gets some element from Bucket and removes it.
+     * return null if Bucket is empty
+     */
+    PairStringString popHeadElement();
+
+    /**
+     * Deletes all content.
+     */
+    void clear();
+}
@@ -0,0 +1,461 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.util.ArrayList;
+
+/**
+ * Dictionary of string with the same interface as HashTable,
+ *      which keeps no objects per element.
+ * Keys and values are encoded as length-prefixed byte sequences
+ *      and appended as records to big shared byte arrays (chunks)
+ * String with all chars below 256 takes one byte per char (Latin-1),
+ *      any other string takes two bytes per char (UTF-16)
+ * Index is open addressing table of int record addresses and key hash codes
+ * Lookup compares chars of the key with bytes of the record in place,
+ *      only the found value is decoded into String
+ * Modified and removed records are left in chunks as garbage,
+ *      which is dropped by copying live records to new chunks
+ *      when there is more garbage than live data
+ */
+public class CompactHashTable {
+
+    private static final int MIN_CAPACITY = 2;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Number of low bits of address holding offset in chunk.
+     */
+    private static final int CHUNK_BITS = 20;
+
+    /**
+     * Size of ordinary chunk in bytes. Bigger records get chunk of their own.
+     */
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /**
+     * Chunk number plus one is kept in high bits of positive int address.
+     */
+    private static final int MAX_CHUNKS = (1 << (Integer.SIZE - 1 - CHUNK_BITS)) - 1;
+
+    /**
+     * Address of empty index slot. Addresses of records are never zero.
+     */
+    private static final int EMPTY = 0;
+
+    public CompactHashTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Makes an empty CompactHashTable.
+     * @param capacity number of index slots, rounded up to the power of two
+     */
+    public CompactHashTable(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity cannot be negative");
+        }
+        int actualCapacity = MIN_CAPACITY;
+        while (actualCapacity < capacity && actualCapacity < MAX_CAPACITY) {
+            actualCapacity *= 2;
+        }
+        addresses = new int[actualCapacity];
+        hashes = new int[actualCapacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of bytes taken by chunks, including garbage and unused tails.
+     */
+    public long allocatedBytes() {
+        long result = 0;
+        for (byte[] chunk : chunks) {
+            result += chunk.length;
+        }
+        return result;
+    }
+
+    /**
+     * Getting hash from given key.
+     * Spreads higher bits of String hashCode, as only lower ones are used for indexing
+     */
+    private static int hash(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        int code = key.hashCode();
+        return code ^ (code >>> 16);
+    }
+
+    private static boolean isLatin1(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            if (string.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Header of encoded string: its length and flag of two bytes per char in the lowest bit.
+     */
+    private static int header(String string) {
+        return (string.length() << 1) | (isLatin1(string) ? 0 : 1);
+    }
+
+    private static int encodedSize(int header) {
+        return varintSize(header) + (header >>> 1) * ((header & 1) + 1);
+    }
+
+    private static int varintSize(int value) {
+        int result = 1;
+        while ((value >>>= 7) != 0) {
+            result++;
+        }
+        return result;
+    }
+
+    private byte[] chunk(int address) {
+        return chunks.get((address >>> CHUNK_BITS) - 1);
+    }
+
+    private static int offset(int address) {
+        return address & (CHUNK_SIZE - 1);
+    }
+
+    private int readVarint(byte[] chunk) {
+        int result = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = chunk[position++];
+            result |= (current & 0x7F) << shift;
+            shift += 7;
+        } while (current < 0);
+        return result;
+    }
+
+    private String readString(byte[] chunk) {
+        int header = readVarint(chunk);
+        int length = header >>> 1;
+        var chars = new char[length];
+        if ((header & 1) == 0) {
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (chunk[position++] & 0xFF);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) (((chunk[position] & 0xFF) << 8) | (chunk[position + 1] & 0xFF));
+                position += 2;
+            }
+        }
+        return new String(chars);
+    }
+
+    private void skipString(byte[] chunk) {
+        int header = readVarint(chunk);
+        position += (header >>> 1) * ((header & 1) + 1);
+    }
+
+    /**
+     * Compares key of the record with given key without decoding it.
+     * Encoding of a string is unique, so only equal strings match
+     */
+    private boolean keyEquals(int address, String key) {
+        byte[] chunk = chunk(address);
+        position = offset(address);
+        int header = readVarint(chunk);
+        if ((header >>> 1) != key.length()) {
+            return false;
+        }
+        if ((header & 1) == 0) {
+            for (int i = 0; i < key.length(); i++) {
+                if ((chunk[position + i] & 0xFF) != key.charAt(i)) {
+                    return false;
+                }
+            }
+        } else {
+            for (int i = 0; i < key.length(); i++) {
+                int offset = position + 2 * i;
+                if ((((chunk[offset] & 0xFF) << 8) | (chunk[offset + 1] & 0xFF)) != key.charAt(i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private String readValue(int address) {
+        byte[] chunk = chunk(address);
+        position = offset(address);
+        skipString(chunk);
+        return readString(chunk);
+    }
+
+    private int recordSize(int address) {
+        byte[] chunk = chunk(address);
+        position = offset(address);
+        skipString(chunk);
+        skipString(chunk);
+        return position - offset(address);
+    }
+
+    /**
+     * Finds index slot containing record with given key.
+     * @return index of the slot, or index of the empty slot where probing stopped
+     *      if there is no such key
+     */
+    private int findSlot(String key, int hash) {
+        int mask = addresses.length - 1;
+        int index = hash & mask;
+        while (addresses[index] != EMPTY) {
+            if (hashes[index] == hash && keyEquals(addresses[index], key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether given key appears in CompactHashTable.
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        return addresses[findSlot(key, hash)] != EMPTY;
+    }
+
+    /**
+     * Returns value by given key.
+     * Null in case there is no such key in CompactHashTable
+     */
+    public String get(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        int address = addresses[findSlot(key, hash)];
+        return address == EMPTY ? null : readValue(address);
+    }
+
+    /**
+     * Modifies element in CompactHashTable with given key.
+     * Adds new element if there was no element with same key
+     * New record is appended in any case, the old one becomes garbage
+     * @return previous value stored with key, or null if there was none
+     * @throws IllegalStateException if there is no more space for records
+     */
+    public String put(String key, String value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("value String cannot be null");
+        }
+        int hash = hash(key);
+        int index = findSlot(key, hash);
+        int address = append(key, value);
+
+        if (addresses[index] != EMPTY) {
+            String content = readValue(addresses[index]);
+            release(addresses[index]);
+            addresses[index] = address;
+            compactIfNeeded();
+            return content;
+        }
+
+        if (ensureCapacity()) {
+            index = findSlot(key, hash);
+        }
+        addresses[index] = address;
+        hashes[index] = hash;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes element with given key from CompactHashTable, if exists.
+     * Entries of the same probe sequence are moved back to fill the gap
+     */
+    public String remove(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        int index = findSlot(key, hash);
+        if (addresses[index] == EMPTY) {
+            return null;
+        }
+        String content = readValue(addresses[index]);
+        release(addresses[index]);
+        size--;
+
+        int mask = addresses.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (addresses[next] != EMPTY) {
+            int home = hashes[next] & mask;
+            //entry may be moved to the gap only if the gap lies on its probe path
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                addresses[gap] = addresses[next];
+                hashes[gap] = hashes[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        addresses[gap] = EMPTY;
+        hashes[gap] = 0;
+
+        compactIfNeeded();
+        return content;
+    }
+
+    /**
+     * Removes all elements and drops all chunks.
+     */
+    public void clear() {
+        addresses = new int[MIN_CAPACITY];
+        hashes = new int[MIN_CAPACITY];
+        chunks = new ArrayList<>();
+        current = null;
+        size = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Encodes element and writes it to the end of current chunk.
+     * @return address of the record
+     */
+    private int append(String key, String value) {
+        int keyHeader = header(key);
+        int valueHeader = header(value);
+        long recordSize = (long) encodedSize(keyHeader) + encodedSize(valueHeader);
+        if (recordSize > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("element is too big");
+        }
+        int address = allocate((int) recordSize);
+        writeString(key, keyHeader);
+        writeString(value, valueHeader);
+        return address;
+    }
+
+    /**
+     * Reserves space for record at the end of current chunk.
+     * Starts new chunk if record does not fit
+     * @return address of the record, which should be written from writeOffset
+     */
+    private int allocate(int recordSize) {
+        if (current == null || current.length - writeOffset < recordSize) {
+            if (chunks.size() == MAX_CHUNKS) {
+                throw new IllegalStateException("CompactHashTable is full");
+            }
+            current = new byte[Math.max(CHUNK_SIZE, recordSize)];
+            chunks.add(current);
+            writeOffset = 0;
+        }
+        liveBytes += recordSize;
+        return (chunks.size() << CHUNK_BITS) | writeOffset;
+    }
+
+    private void writeString(String string, int header) {
+        int value = header;
+        while ((value & ~0x7F) != 0) {
+            current[writeOffset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        current[writeOffset++] = (byte) value;
+
+        if ((header & 1) == 0) {
+            for (int i = 0; i < string.length(); i++) {
+                current[writeOffset++] = (byte) string.charAt(i);
+            }
+        } else {
+            for (int i = 0; i < string.length(); i++) {
+                current[writeOffset++] = (byte) (string.charAt(i) >>> 8);
+                current[writeOffset++] = (byte) string.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Marks record as garbage.
+     */
+    private void release(int address) {
+        int recordSize = recordSize(address);
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+    }
+
+    /**
+     * Copies live records to new chunks, if there is more garbage than live data.
+     * Small garbage is kept, as copying it is not worth while
+     */
+    private void compactIfNeeded() {
+        if (garbageBytes <= liveBytes || garbageBytes < CHUNK_SIZE) {
+            return;
+        }
+
+        final ArrayList<byte[]> oldChunks = chunks;
+        chunks = new ArrayList<>();
+        current = null;
+        liveBytes = 0;
+        garbageBytes = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            if (addresses[i] == EMPTY) {
+                continue;
+            }
+            byte[] chunk = oldChunks.get((addresses[i] >>> CHUNK_BITS) - 1);
+            int offset = offset(addresses[i]);
+            position = offset;
+            skipString(chunk);
+            skipString(chunk);
+            int recordSize = position - offset;
+            addresses[i] = allocate(recordSize);
+            System.arraycopy(chunk, offset, current, writeOffset, recordSize);
+            writeOffset += recordSize;
+        }
+    }
+
+    /**
+     * Rehashing doubles capacity and occurs when index becomes more than half full.
+     * Only index is rebuilt, records stay where they are
+     * @return true if entries were moved
+     */
+    private boolean ensureCapacity() {
+        if (2 * (size + 1) <= addresses.length) {
+            return false;
+        }
+
+        final int[] oldAddresses = addresses;
+        final int[] oldHashes = hashes;
+        addresses = new int[2 * oldAddresses.length];
+        hashes = new int[2 * oldHashes.length];
+
+        int mask = addresses.length - 1;
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] == EMPTY) {
+                continue;
+            }
+            int index = oldHashes[i] & mask;
+            while (addresses[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            addresses[index] = oldAddresses[i];
+            hashes[index] = oldHashes[i];
+        }
+        return true;
+    }
+
+    private int size;
+    private int[] addresses;
+    private int[] hashes;
+
+    private ArrayList<byte[]> chunks = new ArrayList<>();
+
+    /**
+     * Position in chunk, where reading continues.
+     * Kept in a field, so that decoding methods need not return two numbers
+     */
+    private int position;
+
+    /**
+     * Last chunk, where new records are appended, or null if there are no chunks.
+     */
+    private byte[] current;
+    private int writeOffset;
+    private long liveBytes;
+    private long garbageBytes;
+}
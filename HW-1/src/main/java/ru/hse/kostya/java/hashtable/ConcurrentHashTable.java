@@ -0,0 +1,398 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe dictionary of string with the same interface as HashTable.
+ * Collision resolution by chaining
+ * Empty buckets are filled by CAS on bucket head, other modifications
+ *      are done under lock of the first Node in bucket,
+ *      so threads working with different buckets do not wait for each other
+ * Reading operations take no locks and never wait
+ * Rehashing doubles capacity and occurs when table becomes three-quarters full
+ * Rehashing is cooperative: table is split into ranges of buckets,
+ *      and every thread which meets rehashing in progress moves some of them
+ */
+public class ConcurrentHashTable {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Number of buckets claimed at once by thread taking part in rehashing.
+     */
+    private static final int TRANSFER_STRIDE = 16;
+
+    /**
+     * Hash of ForwardingNode. Hashes of ordinary Nodes are non negative.
+     */
+    private static final int MOVED = -1;
+
+    /**
+     * Element of bucket chain.
+     * Value and link to the next Node are changed under lock of bucket head
+     *      and read without any lock
+     */
+    private static class Node {
+        private final int hash;
+        private final String key;
+        private volatile String value;
+        private volatile Node next;
+
+        private Node(int hash, String key, String value, Node next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * Placed into the old table instead of bucket which was already moved.
+     * Directs operations to the new table
+     */
+    private static class ForwardingNode extends Node {
+        private final Resize resize;
+
+        private ForwardingNode(Resize resize) {
+            super(MOVED, null, null, null);
+            this.resize = resize;
+        }
+    }
+
+    /**
+     * State of rehashing in progress.
+     * Buckets are claimed by strides from the end of the old table
+     */
+    private static class Resize {
+        private final AtomicReferenceArray<Node> oldTable;
+        private final AtomicReferenceArray<Node> newTable;
+        private final ForwardingNode forwardingNode;
+        private final AtomicInteger transferIndex;
+        private final AtomicInteger remaining;
+
+        private Resize(AtomicReferenceArray<Node> oldTable) {
+            this.oldTable = oldTable;
+            newTable = new AtomicReferenceArray<>(oldTable.length() * 2);
+            forwardingNode = new ForwardingNode(this);
+            transferIndex = new AtomicInteger(oldTable.length());
+            remaining = new AtomicInteger(oldTable.length());
+        }
+    }
+
+    public ConcurrentHashTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Makes an empty ConcurrentHashTable.
+     * @param capacity number of buckets, rounded up to the power of two
+     */
+    public ConcurrentHashTable(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity cannot be negative");
+        }
+        int actualCapacity = MIN_CAPACITY;
+        while (actualCapacity < capacity && actualCapacity < MAX_CAPACITY) {
+            actualCapacity *= 2;
+        }
+        table = new AtomicReferenceArray<>(actualCapacity);
+    }
+
+    /**
+     * Number of elements.
+     * May be inaccurate while other threads modify ConcurrentHashTable
+     */
+    public int size() {
+        return (int) Math.max(0, count.sum());
+    }
+
+    /**
+     * Getting hash from given key.
+     * Spreads higher bits of String hashCode and clears the sign bit,
+     *      which is reserved for ForwardingNode
+     */
+    private static int hash(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        int code = key.hashCode();
+        return (code ^ (code >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    private static int index(int hash, AtomicReferenceArray<Node> table) {
+        return hash & (table.length() - 1);
+    }
+
+    /**
+     * Checks whether given key appears in ConcurrentHashTable.
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns value by given key.
+     * Null in case there is no such key in ConcurrentHashTable
+     * Takes no locks
+     */
+    public String get(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        AtomicReferenceArray<Node> tab = table;
+        while (true) {
+            Node node = tab.get(index(hash, tab));
+            if (node == null) {
+                return null;
+            }
+            if (node.hash == MOVED) {
+                tab = ((ForwardingNode) node).resize.newTable;
+                continue;
+            }
+            for (; node != null; node = node.next) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node.value;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Modifies element in ConcurrentHashTable with given key.
+     * Adds new element if there was no element with same key
+     * @return previous value stored with key, or null if there was none
+     */
+    public String put(String key, String value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("value String cannot be null");
+        }
+        int hash = hash(key);
+        AtomicReferenceArray<Node> tab = table;
+        while (true) {
+            int index = index(hash, tab);
+            Node head = tab.get(index);
+            if (head == null) {
+                if (tab.compareAndSet(index, null, new Node(hash, key, value, null))) {
+                    addCount(1, tab);
+                    return null;
+                }
+                continue;
+            }
+            if (head.hash == MOVED) {
+                tab = helpResize((ForwardingNode) head);
+                continue;
+            }
+
+            synchronized (head) {
+                if (tab.get(index) != head) {
+                    //bucket was changed before lock was taken
+                    continue;
+                }
+                Node node = head;
+                while (true) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        String content = node.value;
+                        node.value = value;
+                        return content;
+                    }
+                    if (node.next == null) {
+                        node.next = new Node(hash, key, value, null);
+                        break;
+                    }
+                    node = node.next;
+                }
+            }
+            addCount(1, tab);
+            return null;
+        }
+    }
+
+    /**
+     * Removes element with given key from ConcurrentHashTable, if exists.
+     */
+    public String remove(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        AtomicReferenceArray<Node> tab = table;
+        while (true) {
+            int index = index(hash, tab);
+            Node head = tab.get(index);
+            if (head == null) {
+                return null;
+            }
+            if (head.hash == MOVED) {
+                tab = helpResize((ForwardingNode) head);
+                continue;
+            }
+
+            String content = null;
+            synchronized (head) {
+                if (tab.get(index) != head) {
+                    continue;
+                }
+                Node previous = null;
+                for (Node node = head; node != null; previous = node, node = node.next) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        //removed Node keeps its link, so concurrent readers pass through it
+                        if (previous == null) {
+                            tab.set(index, node.next);
+                        } else {
+                            previous.next = node.next;
+                        }
+                        content = node.value;
+                        break;
+                    }
+                }
+            }
+            if (content != null) {
+                count.decrement();
+            }
+            return content;
+        }
+    }
+
+    /**
+     * Removes all elements.
+     * Buckets are emptied one by one, so concurrent modifications
+     *      of the buckets already passed are preserved
+     */
+    public void clear() {
+        AtomicReferenceArray<Node> tab = table;
+        int index = 0;
+        while (index < tab.length()) {
+            Node head = tab.get(index);
+            if (head == null) {
+                index++;
+                continue;
+            }
+            if (head.hash == MOVED) {
+                tab = helpResize((ForwardingNode) head);
+                index = 0;
+                continue;
+            }
+
+            int removed = 0;
+            synchronized (head) {
+                if (tab.get(index) != head) {
+                    continue;
+                }
+                for (Node node = head; node != null; node = node.next) {
+                    removed++;
+                }
+                tab.set(index, null);
+            }
+            count.add(-removed);
+            index++;
+        }
+    }
+
+    /**
+     * Updates number of elements and starts rehashing if needed.
+     * Helps rehashing which is already in progress
+     */
+    private void addCount(int delta, AtomicReferenceArray<Node> tab) {
+        count.add(delta);
+        Resize currentResize = resize;
+        if (currentResize != null) {
+            transfer(currentResize);
+            return;
+        }
+        if (tab.length() >= MAX_CAPACITY || count.sum() < tab.length() - (tab.length() >>> 2)) {
+            return;
+        }
+
+        synchronized (resizeLock) {
+            if (table != tab || resize != null) {
+                //table was already replaced or somebody has started rehashing
+                return;
+            }
+            currentResize = new Resize(tab);
+            resize = currentResize;
+        }
+        transfer(currentResize);
+    }
+
+    /**
+     * Takes part in rehashing, which moved bucket to forwardingNode.
+     * @return table where moved buckets are
+     */
+    private AtomicReferenceArray<Node> helpResize(ForwardingNode forwardingNode) {
+        transfer(forwardingNode.resize);
+        return forwardingNode.resize.newTable;
+    }
+
+    /**
+     * Claims strides of buckets and moves them until there are no unclaimed ones.
+     * The thread which moves the last bucket publishes the new table
+     */
+    private void transfer(Resize currentResize) {
+        while (true) {
+            int end = currentResize.transferIndex.get();
+            if (end <= 0) {
+                return;
+            }
+            int begin = Math.max(0, end - TRANSFER_STRIDE);
+            if (!currentResize.transferIndex.compareAndSet(end, begin)) {
+                continue;
+            }
+            for (int index = end - 1; index >= begin; index--) {
+                transferBucket(currentResize, index);
+            }
+            if (currentResize.remaining.addAndGet(begin - end) == 0) {
+                synchronized (resizeLock) {
+                    table = currentResize.newTable;
+                    resize = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies bucket of the old table into two buckets of the new one
+     *      and replaces it with forwardingNode.
+     * Nodes are copied, not relinked, so readers of the old bucket are not disturbed
+     */
+    private void transferBucket(Resize currentResize, int index) {
+        AtomicReferenceArray<Node> oldTable = currentResize.oldTable;
+        AtomicReferenceArray<Node> newTable = currentResize.newTable;
+        int oldCapacity = oldTable.length();
+        while (true) {
+            Node head = oldTable.get(index);
+            if (head == null) {
+                if (oldTable.compareAndSet(index, null, currentResize.forwardingNode)) {
+                    return;
+                }
+                continue;
+            }
+
+            synchronized (head) {
+                if (oldTable.get(index) != head) {
+                    continue;
+                }
+                Node lowHead = null;
+                Node highHead = null;
+                for (Node node = head; node != null; node = node.next) {
+                    if ((node.hash & oldCapacity) == 0) {
+                        lowHead = new Node(node.hash, node.key, node.value, lowHead);
+                    } else {
+                        highHead = new Node(node.hash, node.key, node.value, highHead);
+                    }
+                }
+                newTable.set(index, lowHead);
+                newTable.set(index + oldCapacity, highHead);
+                oldTable.set(index, currentResize.forwardingNode);
+                return;
+            }
+        }
+    }
+
+    private final LongAdder count = new LongAdder();
+    private final Object resizeLock = new Object();
+    private volatile AtomicReferenceArray<Node> table;
+
+    /**
+     * Rehashing in progress, or null if there is none.
+     */
+    private volatile Resize resize;
+}
@@ -0,0 +1,452 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Dictionary of string with the same interface as HashTable,
+ *      for one writer thread and many reader threads.
+ * Implemented as hash array mapped trie: every node holds up to 32 children,
+ *      chosen by next 5 bits of hash, and a bitmap of present ones
+ * Nodes are immutable. Modification copies the path from the root to the changed node
+ *      and publishes new root through a volatile field,
+ *      so there is no rehashing and readers never see half-done modification
+ * Reading operations take no locks and never wait
+ * Modifying operations are serialized by lock, as they are expected to come from one thread
+ * snapshot() gives consistent immutable view in constant time
+ */
+public class CopyOnWriteHashTable {
+
+    /**
+     * Number of hash bits consumed by one level of the trie.
+     */
+    private static final int BITS_PER_LEVEL = 5;
+    private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+
+    private static final Version EMPTY = new Version(null, 0);
+
+    /**
+     * Immutable node of the trie.
+     */
+    private interface Node {
+    }
+
+    /**
+     * Single element.
+     */
+    private static class Leaf implements Node {
+        private final int hash;
+        private final String key;
+        private final String value;
+
+        private Leaf(int hash, String key, String value) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Elements with equal hash and different keys.
+     */
+    private static class CollisionNode implements Node {
+        private final int hash;
+        private final String[] keys;
+        private final String[] values;
+
+        private CollisionNode(int hash, String[] keys, String[] values) {
+            this.hash = hash;
+            this.keys = keys;
+            this.values = values;
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Inner node. Children are kept packed in order of their 5-bit hash chunk,
+     *      bitmap shows which chunks are present
+     */
+    private static class BitmapNode implements Node {
+        private final int bitmap;
+        private final Node[] children;
+
+        private BitmapNode(int bitmap, Node[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+
+        private int indexOf(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+    }
+
+    /**
+     * Root of the trie with number of elements in it.
+     */
+    private static class Version {
+        private final Node root;
+        private final int size;
+
+        private Version(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Immutable view of CopyOnWriteHashTable at the moment of its creation.
+     */
+    public static class Snapshot implements Iterable<PairStringString> {
+        private final Version version;
+
+        private Snapshot(Version version) {
+            this.version = version;
+        }
+
+        public int size() {
+            return version.size;
+        }
+
+        /**
+         * Checks whether given key appeared in CopyOnWriteHashTable.
+         */
+        public boolean contains(String key) throws IllegalArgumentException {
+            return find(version.root, key) != null;
+        }
+
+        /**
+         * Returns value, which was stored by given key.
+         * Null in case there was no such key in CopyOnWriteHashTable
+         */
+        public String get(String key) throws IllegalArgumentException {
+            return find(version.root, key);
+        }
+
+        /**
+         * Iterates over all elements in unspecified order.
+         */
+        @Override
+        public Iterator<PairStringString> iterator() {
+            return new TrieIterator(version.root);
+        }
+    }
+
+    public int size() {
+        return current.size;
+    }
+
+    /**
+     * Getting hash from given key.
+     * Spreads higher bits of String hashCode, as lower ones choose children of the root
+     */
+    private static int hash(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        int code = key.hashCode();
+        return code ^ (code >>> 16);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & LEVEL_MASK);
+    }
+
+    /**
+     * Makes consistent immutable view of current content.
+     * Takes constant time, as nodes are shared
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(current);
+    }
+
+    /**
+     * Checks whether given key appears in CopyOnWriteHashTable.
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        return find(current.root, key) != null;
+    }
+
+    /**
+     * Returns value by given key.
+     * Null in case there is no such key in CopyOnWriteHashTable
+     */
+    public String get(String key) throws IllegalArgumentException {
+        return find(current.root, key);
+    }
+
+    private static String find(Node node, String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        int shift = 0;
+        while (node instanceof BitmapNode) {
+            var bitmapNode = (BitmapNode) node;
+            int bit = bit(hash, shift);
+            if ((bitmapNode.bitmap & bit) == 0) {
+                return null;
+            }
+            node = bitmapNode.children[bitmapNode.indexOf(bit)];
+            shift += BITS_PER_LEVEL;
+        }
+        if (node instanceof Leaf) {
+            var leaf = (Leaf) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? leaf.value : null;
+        }
+        if (node instanceof CollisionNode) {
+            var collisionNode = (CollisionNode) node;
+            if (collisionNode.hash != hash) {
+                return null;
+            }
+            int index = collisionNode.indexOf(key);
+            return index < 0 ? null : collisionNode.values[index];
+        }
+        return null;
+    }
+
+    /**
+     * Modifies element in CopyOnWriteHashTable with given key.
+     * Adds new element if there was no element with same key
+     * @return previous value stored with key, or null if there was none
+     */
+    public synchronized String put(String key, String value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("value String cannot be null");
+        }
+        int hash = hash(key);
+        Version version = current;
+        var previous = new String[1];
+        Node root = put(version.root, new Leaf(hash, key, value), 0, previous);
+        current = new Version(root, previous[0] == null ? version.size + 1 : version.size);
+        return previous[0];
+    }
+
+    /**
+     * Removes element with given key from CopyOnWriteHashTable, if exists.
+     */
+    public synchronized String remove(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        Version version = current;
+        var previous = new String[1];
+        Node root = remove(version.root, hash, key, 0, previous);
+        if (previous[0] != null) {
+            current = new Version(root, version.size - 1);
+        }
+        return previous[0];
+    }
+
+    /**
+     * Removes all elements. Existing snapshots are not affected.
+     */
+    public synchronized void clear() {
+        current = EMPTY;
+    }
+
+    /**
+     * Returns copy of the subtrie with given leaf put into it.
+     * @param previous receives value replaced by leaf
+     */
+    private static Node put(Node node, Leaf leaf, int shift, String[] previous) {
+        if (node == null) {
+            return leaf;
+        }
+        if (node instanceof BitmapNode) {
+            var bitmapNode = (BitmapNode) node;
+            int bit = bit(leaf.hash, shift);
+            int index = bitmapNode.indexOf(bit);
+            if ((bitmapNode.bitmap & bit) == 0) {
+                var children = new Node[bitmapNode.children.length + 1];
+                System.arraycopy(bitmapNode.children, 0, children, 0, index);
+                children[index] = leaf;
+                System.arraycopy(bitmapNode.children, index, children, index + 1,
+                        bitmapNode.children.length - index);
+                return new BitmapNode(bitmapNode.bitmap | bit, children);
+            }
+            Node[] children = bitmapNode.children.clone();
+            children[index] = put(children[index], leaf, shift + BITS_PER_LEVEL, previous);
+            return new BitmapNode(bitmapNode.bitmap, children);
+        }
+
+        int hash = node instanceof Leaf ? ((Leaf) node).hash : ((CollisionNode) node).hash;
+        if (hash != leaf.hash) {
+            return join(node, hash, leaf, leaf.hash, shift);
+        }
+        if (node instanceof Leaf) {
+            var other = (Leaf) node;
+            if (other.key.equals(leaf.key)) {
+                previous[0] = other.value;
+                return leaf;
+            }
+            return new CollisionNode(hash, new String[] {other.key, leaf.key},
+                    new String[] {other.value, leaf.value});
+        }
+
+        var collisionNode = (CollisionNode) node;
+        int index = collisionNode.indexOf(leaf.key);
+        if (index >= 0) {
+            previous[0] = collisionNode.values[index];
+            String[] values = collisionNode.values.clone();
+            values[index] = leaf.value;
+            return new CollisionNode(hash, collisionNode.keys, values);
+        }
+        String[] keys = Arrays.copyOf(collisionNode.keys, collisionNode.keys.length + 1);
+        String[] values = Arrays.copyOf(collisionNode.values, collisionNode.values.length + 1);
+        keys[keys.length - 1] = leaf.key;
+        values[values.length - 1] = leaf.value;
+        return new CollisionNode(hash, keys, values);
+    }
+
+    /**
+     * Makes subtrie of two nodes with different hashes.
+     * Hashes differ in some bit, so they are split before the last level
+     */
+    private static Node join(Node first, int firstHash, Node second, int secondHash, int shift) {
+        int firstBit = bit(firstHash, shift);
+        int secondBit = bit(secondHash, shift);
+        if (firstBit == secondBit) {
+            return new BitmapNode(firstBit,
+                    new Node[] {join(first, firstHash, second, secondHash, shift + BITS_PER_LEVEL)});
+        }
+        Node[] children = Integer.compareUnsigned(firstBit, secondBit) < 0
+                ? new Node[] {first, second} : new Node[] {second, first};
+        return new BitmapNode(firstBit | secondBit, children);
+    }
+
+    /**
+     * Returns copy of the subtrie without given key, or null if it becomes empty.
+     * BitmapNode left with one Leaf or CollisionNode is replaced by it
+     * @param previous receives removed value
+     */
+    private static Node remove(Node node, int hash, String key, int shift, String[] previous) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof Leaf) {
+            var leaf = (Leaf) node;
+            if (leaf.hash == hash && leaf.key.equals(key)) {
+                previous[0] = leaf.value;
+                return null;
+            }
+            return node;
+        }
+        if (node instanceof CollisionNode) {
+            var collisionNode = (CollisionNode) node;
+            int index = collisionNode.hash == hash ? collisionNode.indexOf(key) : -1;
+            if (index < 0) {
+                return node;
+            }
+            previous[0] = collisionNode.values[index];
+            if (collisionNode.keys.length == 2) {
+                return new Leaf(hash, collisionNode.keys[1 - index], collisionNode.values[1 - index]);
+            }
+            return new CollisionNode(hash, without(collisionNode.keys, index),
+                    without(collisionNode.values, index));
+        }
+
+        var bitmapNode = (BitmapNode) node;
+        int bit = bit(hash, shift);
+        if ((bitmapNode.bitmap & bit) == 0) {
+            return node;
+        }
+        int index = bitmapNode.indexOf(bit);
+        Node child = remove(bitmapNode.children[index], hash, key, shift + BITS_PER_LEVEL, previous);
+        if (child == bitmapNode.children[index]) {
+            return node;
+        }
+        if (child == null) {
+            if (bitmapNode.children.length == 1) {
+                return null;
+            }
+            var children = without(bitmapNode.children, index);
+            if (children.length == 1 && !(children[0] instanceof BitmapNode)) {
+                return children[0];
+            }
+            return new BitmapNode(bitmapNode.bitmap & ~bit, children);
+        }
+        if (bitmapNode.children.length == 1 && !(child instanceof BitmapNode)) {
+            return child;
+        }
+        Node[] children = bitmapNode.children.clone();
+        children[index] = child;
+        return new BitmapNode(bitmapNode.bitmap, children);
+    }
+
+    private static <T> T[] without(T[] array, int index) {
+        T[] result = Arrays.copyOf(array, array.length - 1);
+        System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+        return result;
+    }
+
+    /**
+     * Depth-first iterator over elements of immutable trie.
+     */
+    private static class TrieIterator implements Iterator<PairStringString> {
+        private final ArrayDeque<Node> stack = new ArrayDeque<>();
+        private CollisionNode collisionNode;
+        private int collisionIndex;
+        private PairStringString next;
+
+        private TrieIterator(Node root) {
+            if (root != null) {
+                stack.push(root);
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null) {
+                if (collisionNode != null && collisionIndex < collisionNode.keys.length) {
+                    next = new PairStringString(collisionNode.keys[collisionIndex],
+                            collisionNode.values[collisionIndex]);
+                    collisionIndex++;
+                    return;
+                }
+                collisionNode = null;
+                if (stack.isEmpty()) {
+                    return;
+                }
+                Node node = stack.pop();
+                if (node instanceof BitmapNode) {
+                    Node[] children = ((BitmapNode) node).children;
+                    for (int i = children.length - 1; i >= 0; i--) {
+                        stack.push(children[i]);
+                    }
+                } else if (node instanceof Leaf) {
+                    var leaf = (Leaf) node;
+                    next = new PairStringString(leaf.key, leaf.value);
+                } else {
+                    collisionNode = (CollisionNode) node;
+                    collisionIndex = 0;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public PairStringString next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            PairStringString result = next;
+            advance();
+            return result;
+        }
+    }
+
+    /**
+     * Latest published version. Readers take it once per operation.
+     */
+    private volatile Version current = EMPTY;
+}
@@ -0,0 +1,267 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable dictionary of string, made by HashTable.freeze().
+ * Uses minimal perfect hash function over the set of keys (hash and displace scheme):
+ *      keys are split into small groups by hash, and every group gets displacement,
+ *      which sends its keys to distinct free slots of the table
+ * Table has exactly as many slots as there are elements,
+ *      so keys and values are kept in two packed arrays
+ *      and the only additional memory is one int per group of several keys
+ * get computes one hash of the key, reads one slot and compares one key
+ * There are no modifying operations, so misuse is a compile error
+ */
+public class FrozenHashTable implements Iterable<PairStringString> {
+
+    /**
+     * Average number of keys per group.
+     * Bigger groups take less memory, but are harder to place
+     */
+    private static final int GROUP_SIZE = 4;
+
+    /**
+     * Number of displacements tried for one group, before building starts over with another seed.
+     */
+    private static final int MAX_ATTEMPTS = 1 << 20;
+
+    /**
+     * Builds FrozenHashTable with the same elements as given HashTable.
+     */
+    FrozenHashTable(HashTable source) {
+        int size = source.size();
+        keys = new String[size];
+        values = new String[size];
+        int groupCount = Math.max(1, (size + GROUP_SIZE - 1) / GROUP_SIZE);
+        displacements = new int[groupCount];
+        if (size == 0) {
+            seed = 0;
+            return;
+        }
+
+        final var sourceKeys = new String[size];
+        final var sourceValues = new String[size];
+        int index = 0;
+        for (PairStringString element : source) {
+            sourceKeys[index] = element.getKey();
+            sourceValues[index] = element.getValue();
+            index++;
+        }
+
+        long currentSeed = 0;
+        while (!tryBuild(sourceKeys, sourceValues, currentSeed)) {
+            currentSeed++;
+        }
+        seed = currentSeed;
+    }
+
+    /**
+     * Places all keys using given seed.
+     * @return false if some group cannot be placed, then another seed should be tried
+     */
+    private boolean tryBuild(String[] sourceKeys, String[] sourceValues, long seed) {
+        int size = sourceKeys.length;
+        int groupCount = displacements.length;
+        final var hashes = new long[size];
+        final var groupSizes = new int[groupCount];
+        for (int i = 0; i < size; i++) {
+            hashes[i] = hash(sourceKeys[i], seed);
+            groupSizes[group(hashes[i], groupCount)]++;
+        }
+
+        //elements sorted by group, groups are contiguous
+        final var groupStart = new int[groupCount + 1];
+        for (int group = 0; group < groupCount; group++) {
+            groupStart[group + 1] = groupStart[group] + groupSizes[group];
+        }
+        final var members = new int[size];
+        final var filled = new int[groupCount];
+        for (int i = 0; i < size; i++) {
+            int group = group(hashes[i], groupCount);
+            members[groupStart[group] + filled[group]++] = i;
+        }
+
+        //bigger groups are placed first, while there are many free slots
+        int maxGroupSize = 0;
+        for (int groupSize : groupSizes) {
+            maxGroupSize = Math.max(maxGroupSize, groupSize);
+        }
+        final var bySize = new int[maxGroupSize + 2];
+        for (int groupSize : groupSizes) {
+            bySize[maxGroupSize - groupSize + 1]++;
+        }
+        for (int i = 1; i < bySize.length; i++) {
+            bySize[i] += bySize[i - 1];
+        }
+        final var order = new int[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            order[bySize[maxGroupSize - groupSizes[group]]++] = group;
+        }
+
+        final var occupied = new boolean[size];
+        final var slots = new int[maxGroupSize];
+        int freeSlot = 0;
+        for (int group : order) {
+            int groupSize = groupSizes[group];
+            if (groupSize == 0) {
+                displacements[group] = 0;
+                continue;
+            }
+            if (groupSize == 1) {
+                //single key is sent directly to any free slot
+                while (occupied[freeSlot]) {
+                    freeSlot++;
+                }
+                occupied[freeSlot] = true;
+                slots[0] = freeSlot;
+                displacements[group] = -freeSlot - 1;
+            } else if (!placeGroup(hashes, members, groupStart[group], groupSize, occupied, slots, group)) {
+                return false;
+            }
+            for (int i = 0; i < groupSize; i++) {
+                int element = members[groupStart[group] + i];
+                keys[slots[i]] = sourceKeys[element];
+                values[slots[i]] = sourceValues[element];
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds displacement, which sends all keys of the group to distinct free slots.
+     * Marks the slots as occupied and writes them into slots
+     */
+    private boolean placeGroup(long[] hashes, int[] members, int start, int groupSize,
+                               boolean[] occupied, int[] slots, int group) {
+        for (int displacement = 0; displacement < MAX_ATTEMPTS; displacement++) {
+            int placed = 0;
+            for (; placed < groupSize; placed++) {
+                int slot = slot(hashes[members[start + placed]], displacement, occupied.length);
+                if (occupied[slot]) {
+                    break;
+                }
+                occupied[slot] = true;
+                slots[placed] = slot;
+            }
+            if (placed == groupSize) {
+                displacements[group] = displacement;
+                return true;
+            }
+            for (int i = 0; i < placed; i++) {
+                occupied[slots[i]] = false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 64-bit hash of the string, depending on seed.
+     * FNV-1a over chars, finished by mixing of MurmurHash3
+     */
+    private static long hash(String key, long seed) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Maps high half of hash uniformly to [0, bound).
+     */
+    private static int reduce(long hash, int bound) {
+        return (int) (((hash >>> 32) * bound) >>> 32);
+    }
+
+    private static int group(long hash, int groupCount) {
+        return reduce(hash, groupCount);
+    }
+
+    private static int slot(long hash, int displacement, int size) {
+        return reduce(mix(hash + 0x9e3779b97f4a7c15L * (displacement + 1)), size);
+    }
+
+    /**
+     * Finds the only slot, where given key may be.
+     */
+    private int findSlot(String key) {
+        long hash = hash(key, seed);
+        int displacement = displacements[group(hash, displacements.length)];
+        if (displacement < 0) {
+            return -displacement - 1;
+        }
+        return slot(hash, displacement, keys.length);
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Checks whether given key appears in FrozenHashTable.
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns value by given key.
+     * Null in case there is no such key in FrozenHashTable
+     */
+    public String get(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        if (keys.length == 0) {
+            return null;
+        }
+        int slot = findSlot(key);
+        return keys[slot].equals(key) ? values[slot] : null;
+    }
+
+    /**
+     * Iterates over all elements in order of slots.
+     */
+    @Override
+    public Iterator<PairStringString> iterator() {
+        return new Iterator<>() {
+            private int slot;
+
+            @Override
+            public boolean hasNext() {
+                return slot < keys.length;
+            }
+
+            @Override
+            public PairStringString next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                var element = new PairStringString(keys[slot], values[slot]);
+                slot++;
+                return element;
+            }
+        };
+    }
+
+    private final String[] keys;
+    private final String[] values;
+
+    /**
+     * Displacement of every group of keys.
+     * Negative value -slot - 1 means group of one key, placed directly into slot
+     */
+    private final int[] displacements;
+    private final long seed;
+}
@@ -1,15 +1,75 @@
 package ru.hse.kostya.java.hashtable;
 
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Dictionary of string. Allows to add, remove and modify elements
  * Collision resolution by chaining (closed addressing)
  * Default hashCode of String used as a hash
  * Rehashing doubles capacity and occurs when number of elements reaches
- *      number of buckets
+ *      number of buckets multiplied by load factor, which is 1 by default
+ * Rehashing is incremental: old and new tables live side by side
+ *      and every operation moves a few buckets from the old one,
+ *      so no single operation pays for moving the whole table
+ * After mass removals capacity is halved the same way, when number of elements
+ *      drops below capacity multiplied by shrink load factor
+ * Buckets are allocated on the first put and dropped when they become empty,
+ *      so empty buckets take no memory besides the table slot
+ * Bucket with too many elements is turned from List into TreeBucket,
+ *      so colliding keys cost logarithmic time instead of linear
+ * Iterators and spliterators are fail-fast: they throw ConcurrentModificationException
+ *      if HashTable is structurally modified after their creation
+ * Health of the table, such as lengths of buckets and time spent on rehashing,
+ *      is available through stats()
+ * Snapshot keeps layout of buckets, so HashTable is loaded from it without rehashing
  */
-public class HashTable {
+public class HashTable implements Iterable<PairStringString> {
+
+    /**
+     * Minimal number of old buckets moved to the new table by every operation.
+     * Step of every rehashing is chosen so that the old table is moved
+     *      before size reaches the threshold of the new one,
+     *      so growing right after shrinking never has to move the rest of the old table at once
+     */
+    private static final int REHASH_STEP = 4;
+
+    /**
+     * List bucket becomes TreeBucket when it grows bigger than this.
+     */
+    private static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * TreeBucket becomes List again when it shrinks to this size.
+     * Smaller than TREEIFY_THRESHOLD, so bucket does not switch back and forth
+     */
+    private static final int UNTREEIFY_THRESHOLD = 6;
+
+    private static final float DEFAULT_LOAD_FACTOR = 1;
+
+    /**
+     * Shrink load factor is load factor divided by this by default.
+     */
+    private static final int DEFAULT_SHRINK_DIVISOR = 4;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /**
+     * Initial length of table while reading snapshot. Every bucket takes at least a byte of snapshot,
+     *      so table longer than this is allocated only when enough bytes really arrived
+     */
+    private static final int SNAPSHOT_READ_CHUNK = 1 << 10;
 
     public HashTable() {
         this(1);
@@ -20,21 +80,109 @@ public class HashTable {
      * @param capacity number of buckets
      */
     public HashTable(int capacity) {
-        this.capacity = capacity;
-        table = new List[capacity];
-        Arrays.setAll(table, i -> new List());
+        loadFactor = DEFAULT_LOAD_FACTOR;
+        shrinkLoadFactor = DEFAULT_LOAD_FACTOR / DEFAULT_SHRINK_DIVISOR;
+        initialCapacity = capacity;
+        setTable(newTable(capacity));
+    }
+
+    /**
+     * Makes a HashTable, which holds expectedSize elements without rehashing.
+     * @param loadFactor maximum average number of elements per bucket
+     * @throws IllegalArgumentException if expectedSize is negative or loadFactor is not positive
+     */
+    public HashTable(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, loadFactor / DEFAULT_SHRINK_DIVISOR);
+    }
+
+    /**
+     * Makes a HashTable, which holds expectedSize elements without rehashing.
+     * @param loadFactor maximum average number of elements per bucket
+     * @param shrinkLoadFactor average number of elements per bucket, below which capacity is halved,
+     *      zero turns shrinking off
+     * @throws IllegalArgumentException if expectedSize is negative, loadFactor is not positive
+     *      or shrinkLoadFactor is not in [0, loadFactor / 2).
+     *      The gap makes sure halved table is not grown back at once
+     */
+    public HashTable(int expectedSize, float loadFactor, float shrinkLoadFactor) {
+        initialCapacity = capacityFor(expectedSize, loadFactor);
+        if (!(shrinkLoadFactor >= 0 && shrinkLoadFactor < loadFactor / 2)) {
+            throw new IllegalArgumentException("shrink load factor should be in [0, loadFactor / 2)");
+        }
+        this.loadFactor = loadFactor;
+        this.shrinkLoadFactor = shrinkLoadFactor;
+        setTable(newTable(initialCapacity));
+    }
+
+    /**
+     * Makes a HashTable with given table, which is already filled.
+     */
+    private HashTable(float loadFactor, float shrinkLoadFactor, int initialCapacity, Bucket[] table, int size) {
+        this.loadFactor = loadFactor;
+        this.shrinkLoadFactor = shrinkLoadFactor;
+        this.initialCapacity = initialCapacity;
+        setTable(table);
+        this.size = size;
+    }
+
+    /**
+     * Number of buckets needed to hold given number of elements without rehashing.
+     */
+    private static int capacityFor(long expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size cannot be negative");
+        }
+        if (!(loadFactor > 0) || Float.isInfinite(loadFactor)) {
+            throw new IllegalArgumentException("load factor should be positive");
+        }
+        return (int) Math.max(1, Math.min(MAX_CAPACITY, Math.ceil((expectedSize + 1) / (double) loadFactor)));
     }
 
     public int size() {
         return size;
     }
 
+    /**
+     * Makes snapshot of bucket lengths and rehashing counters.
+     * Takes time linear in capacity, as every bucket is visited
+     */
+    public HashTableStats stats() {
+        int maxChainLength = 0;
+        for (Bucket[] buckets : new Bucket[][] {table, oldTable}) {
+            if (buckets != null) {
+                for (Bucket bucket : buckets) {
+                    maxChainLength = Math.max(maxChainLength, bucketSize(bucket));
+                }
+            }
+        }
+
+        var chainLengthHistogram = new long[maxChainLength + 1];
+        int treeBucketCount = 0;
+        for (int i = 0; i < table.length; i++) {
+            chainLengthHistogram[bucketSize(table[i])]++;
+            if (table[i] instanceof TreeBucket) {
+                treeBucketCount++;
+            }
+        }
+        if (oldTable != null) {
+            //moved buckets of the old table are empty and do not count
+            for (int i = rehashIndex; i < oldTable.length; i++) {
+                chainLengthHistogram[bucketSize(oldTable[i])]++;
+                if (oldTable[i] instanceof TreeBucket) {
+                    treeBucketCount++;
+                }
+            }
+        }
+        return new HashTableStats(size, capacity, chainLengthHistogram,
+                treeBucketCount, resizeCount, resizeNanos);
+    }
+
     /**
      * Getting hash from given key.
      * @param key String from which we need hash
      * @return hash smaller then capacity and non negative
      */
-    private int getCode(String key) throws IllegalArgumentException {
+    private static int getCode(String key, int capacity) throws IllegalArgumentException {
         if (key == null) {
             throw new IllegalArgumentException("key String cannot be null");
         }
@@ -45,11 +193,39 @@ public class HashTable {
         return code;
     }
 
+    /**
+     * Finds table which should contain given key.
+     * While rehashing is in progress buckets of the old table before rehashIndex
+     *      are already moved, so the key is in the old table only if
+     *      its old bucket is not moved yet
+     */
+    private Bucket[] getTable(String key) throws IllegalArgumentException {
+        if (oldTable != null && getCode(key, oldTable.length) >= rehashIndex) {
+            return oldTable;
+        }
+        return table;
+    }
+
+    private static int bucketSize(Bucket bucket) {
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    /**
+     * Finds Bucket which should contain given key.
+     * @return null if the bucket is empty
+     */
+    private Bucket getBucket(String key) throws IllegalArgumentException {
+        Bucket[] keyTable = getTable(key);
+        return keyTable[getCode(key, keyTable.length)];
+    }
+
     /**
      * Checks whether given key appears in HashTable.
      */
     public boolean contains(String key) throws IllegalArgumentException {
-        return table[getCode(key)].contains(key);
+        rehashStep();
+        Bucket bucket = getBucket(key);
+        return bucket != null && bucket.contains(key);
     }
 
     /**
@@ -57,7 +233,9 @@ public class HashTable {
      * Null in case there is no such key in HashTable
      */
     public String get(String key) throws IllegalArgumentException {
-        return table[getCode(key)].get(key);
+        rehashStep();
+        Bucket bucket = getBucket(key);
+        return bucket == null ? null : bucket.get(key);
     }
 
     /**
@@ -72,57 +250,539 @@ public class HashTable {
         }
 
         ensureCapacity();
-        String content = table[getCode(key)].put(key, value);
+        rehashStep();
+        String content = putIntoTable(getTable(key), key, value);
         if (content == null) {
             size++;
+            modCount++;
         }
         return content;
     }
 
+    /**
+     * Puts all elements of the map into HashTable.
+     * Table is resized at most once, before insertion, to hold all new elements
+     * @throws IllegalArgumentException if the map contains null key or value,
+     *      in that case HashTable is not modified
+     */
+    public void putAll(Map<String, String> elements) throws IllegalArgumentException {
+        for (Map.Entry<String, String> element : elements.entrySet()) {
+            if (element.getKey() == null) {
+                throw new IllegalArgumentException("key String cannot be null");
+            }
+            if (element.getValue() == null) {
+                throw new IllegalArgumentException("value String cannot be null");
+            }
+        }
+
+        reserve((long) size + elements.size());
+        for (Map.Entry<String, String> element : elements.entrySet()) {
+            if (putIntoTable(getTable(element.getKey()), element.getKey(), element.getValue()) == null) {
+                size++;
+                modCount++;
+            }
+        }
+    }
+
+    /**
+     * Returns values of given keys.
+     * @return map from keys, which appear in HashTable, to their values
+     *      in order of the collection
+     */
+    public Map<String, String> getAll(Collection<String> keys) throws IllegalArgumentException {
+        var result = new LinkedHashMap<String, String>();
+        for (String key : keys) {
+            String value = get(key);
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Iterates over all elements in unspecified order.
+     */
+    @Override
+    public Iterator<PairStringString> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    /**
+     * Iterates over all keys in unspecified order.
+     */
+    public Iterator<String> keyIterator() {
+        return stream().map(PairStringString::getKey).iterator();
+    }
+
+    /**
+     * Iterates over all values in unspecified order.
+     */
+    public Iterator<String> valueIterator() {
+        return stream().map(PairStringString::getValue).iterator();
+    }
+
+    /**
+     * Makes Spliterator over all elements, which splits by ranges of buckets.
+     * Finishes rehashing in progress, so that all elements are in one table
+     */
+    @Override
+    public Spliterator<PairStringString> spliterator() {
+        if (oldTable != null) {
+            finishRehash();
+        }
+        return new HashTableSpliterator(table, 0, capacity, size, true);
+    }
+
+    /**
+     * Makes immutable copy of HashTable, which is faster to read and takes less memory.
+     * Later modifications of HashTable do not affect the copy
+     */
+    public FrozenHashTable freeze() {
+        return new FrozenHashTable(this);
+    }
+
+    /**
+     * Sequential Stream of all elements.
+     * Use Stream.parallel() to process elements in many threads,
+     *      HashTable should not be modified meanwhile
+     */
+    public Stream<PairStringString> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Writes all elements bucket by bucket in binary format.
+     * Finishes rehashing in progress, so that all elements are in one table
+     * Channel is not closed
+     */
+    public void writeSnapshot(WritableByteChannel channel) throws IOException {
+        if (oldTable != null) {
+            finishRehash();
+        }
+        var writer = new SnapshotFormat.Writer(channel);
+        writer.writeInt(SnapshotFormat.MAGIC);
+        writer.writeInt(SnapshotFormat.VERSION);
+        writer.writeFloat(loadFactor);
+        writer.writeFloat(shrinkLoadFactor);
+        writer.writeInt(initialCapacity);
+        writer.writeInt(capacity);
+        writer.writeInt(size);
+        for (Bucket bucket : table) {
+            writer.writeVarint(bucketSize(bucket));
+            if (bucket == null) {
+                continue;
+            }
+            for (PairStringString element : bucket) {
+                writer.writeString(element.getKey());
+                writer.writeString(element.getValue());
+            }
+        }
+        writer.finish();
+    }
+
+    /**
+     * Reads HashTable written by writeSnapshot.
+     * Elements are put straight into their buckets of the table of final capacity,
+     *      hashes of keys are not computed
+     * Channel is not closed
+     * @throws IOException if data is not a snapshot or is corrupted
+     */
+    public static HashTable readSnapshot(ReadableByteChannel channel) throws IOException {
+        var reader = new SnapshotFormat.Reader(channel);
+        if (reader.readInt() != SnapshotFormat.MAGIC) {
+            throw new IOException("not a HashTable snapshot");
+        }
+        int version = reader.readInt();
+        if (version < SnapshotFormat.FIRST_VERSION || version > SnapshotFormat.VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        float loadFactor = reader.readFloat();
+        //first version had no shrinking
+        float shrinkLoadFactor = version == SnapshotFormat.FIRST_VERSION
+                ? loadFactor / DEFAULT_SHRINK_DIVISOR : reader.readFloat();
+        int initialCapacity = reader.readInt();
+        int capacity = reader.readInt();
+        int size = reader.readInt();
+        if (!(loadFactor > 0) || Float.isInfinite(loadFactor)
+                || !(shrinkLoadFactor >= 0 && shrinkLoadFactor < loadFactor / 2)
+                || initialCapacity <= 0 || initialCapacity > MAX_CAPACITY
+                || capacity <= 0 || capacity > MAX_CAPACITY || size < 0) {
+            throw new IOException("corrupted snapshot: invalid header");
+        }
+
+        //table grows only as buckets are really read, so corrupted capacity can't cause huge allocation
+        var table = new Bucket[Math.min(capacity, SNAPSHOT_READ_CHUNK)];
+        long elements = 0;
+        for (int i = 0; i < capacity; i++) {
+            int bucketSize = reader.readVarint();
+            elements += bucketSize;
+            if (bucketSize < 0 || elements > size) {
+                throw new IOException("corrupted snapshot: wrong number of elements");
+            }
+            if (bucketSize == 0) {
+                continue;
+            }
+            if (i >= table.length) {
+                table = Arrays.copyOf(table, (int) Math.min(capacity, Math.max(2L * table.length, i + 1L)));
+            }
+            table[i] = bucketSize > TREEIFY_THRESHOLD ? new TreeBucket() : new List();
+            for (int j = 0; j < bucketSize; j++) {
+                if (table[i].put(reader.readString(version), reader.readString(version)) != null) {
+                    throw new IOException("corrupted snapshot: repeated key");
+                }
+            }
+        }
+        if (elements != size) {
+            throw new IOException("corrupted snapshot: wrong number of elements");
+        }
+        reader.finish();
+        if (table.length != capacity) {
+            table = Arrays.copyOf(table, capacity);
+        }
+        return new HashTable(loadFactor, shrinkLoadFactor, initialCapacity, table, size);
+    }
+
     /**
      * Removes element with given key from HashTable, if exists.
+     * Drops the bucket if it becomes empty and checks necessity of shrinking
      */
     public String remove(String key) throws IllegalArgumentException {
-        String content = table[getCode(key)].remove(key);
+        rehashStep();
+        Bucket[] keyTable = getTable(key);
+        int code = getCode(key, keyTable.length);
+        if (keyTable[code] == null) {
+            return null;
+        }
+        String content = keyTable[code].remove(key);
         if (content != null) {
             size--;
+            modCount++;
+            if (keyTable[code].empty()) {
+                keyTable[code] = null;
+            } else if (keyTable[code] instanceof TreeBucket
+                    && keyTable[code].size() <= UNTREEIFY_THRESHOLD) {
+                keyTable[code] = moveElements(keyTable[code], new List());
+            }
+            shrinkIfNeeded();
         }
         return content;
     }
 
     /**
-     * Clears every List in HashTable.
+     * Removes all elements.
+     * Capacity returns to the one given on construction
      */
     public void clear() {
-        capacity = 1;
-        table = new List[capacity];
+        setTable(newTable(initialCapacity));
+        oldTable = null;
         size = 0;
     }
 
     /**
      * Rehashing doubles capacity and occurs when number of elements
-     *      reaches number of buckets.
+     *      reaches threshold.
+     * Only allocates new table, elements are moved by rehashStep
      */
     private void ensureCapacity() {
-        if (size != capacity) {
+        if (size < threshold || capacity == MAX_CAPACITY) {
             return;
         }
+        if (oldTable != null) {
+            finishRehash();
+        }
+        startRehash((int) Math.min(MAX_CAPACITY, 2L * capacity));
+    }
 
-        final List[] oldTable = table;
-        capacity *= 2;
-        table = new List[capacity];
-        Arrays.setAll(table, i -> new List());
-        size = 0;
+    /**
+     * Rehashing halves capacity and occurs when number of elements
+     *      drops below shrinkThreshold.
+     * Does not start while another rehashing is in progress,
+     *      so that no single operation moves the rest of the old table
+     * Capacity never becomes smaller than the one given on construction
+     */
+    private void shrinkIfNeeded() {
+        if (size >= shrinkThreshold || oldTable != null || capacity <= initialCapacity) {
+            return;
+        }
+
+        startRehash(Math.max(initialCapacity, capacity / 2));
+    }
+
+    /**
+     * Allocates new table and keeps the current one as old table.
+     * Every operation does one step, and every put before the next resize starts is one more element,
+     *      so step is enough to move the old table in (new threshold - size) operations
+     */
+    private void startRehash(int newCapacity) {
+        long start = System.nanoTime();
+        oldTable = table;
+        rehashIndex = 0;
+        setTable(newTable(newCapacity));
+        long operationsLeft = Math.max(1, threshold - size);
+        rehashStepSize = (int) Math.max(REHASH_STEP, (oldTable.length + operationsLeft - 1) / operationsLeft);
+        resizeCount++;
+        resizeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Whether old table is still being moved.
+     */
+    boolean isRehashing() {
+        return oldTable != null;
+    }
+
+    /**
+     * Makes capacity enough to hold given number of elements without rehashing.
+     * Elements are moved to the table of the final capacity at once
+     */
+    private void reserve(long expectedSize) {
+        int requiredCapacity = capacityFor(expectedSize, loadFactor);
+        if (requiredCapacity <= capacity) {
+            return;
+        }
+        if (oldTable != null) {
+            finishRehash();
+        }
+
+        long start = System.nanoTime();
+        final Bucket[] previousTable = table;
+        setTable(newTable(requiredCapacity));
+        for (Bucket bucket : previousTable) {
+            moveBucket(bucket);
+        }
+        resizeCount++;
+        resizeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Moves next rehashStepSize buckets of the old table, if rehashing is in progress.
+     * When rehashing completes, the next shrinking may start,
+     *      so that table keeps shrinking after removals stop
+     */
+    private void rehashStep() {
+        if (oldTable == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        int end = (int) Math.min(oldTable.length, (long) rehashIndex + rehashStepSize);
+        while (rehashIndex < end) {
+            moveBucket(oldTable[rehashIndex]);
+            oldTable[rehashIndex] = null;
+            rehashIndex++;
+        }
+        if (rehashIndex == oldTable.length) {
+            oldTable = null;
+        }
+        resizeNanos += System.nanoTime() - start;
+        if (oldTable == null) {
+            shrinkIfNeeded();
+        }
+    }
+
+    /**
+     * Moves all remaining buckets of the old table at once.
+     */
+    private void finishRehash() {
+        long start = System.nanoTime();
+        while (rehashIndex < oldTable.length) {
+            moveBucket(oldTable[rehashIndex]);
+            oldTable[rehashIndex] = null;
+            rehashIndex++;
+        }
+        oldTable = null;
+        resizeNanos += System.nanoTime() - start;
+    }
+
+    private void moveBucket(Bucket bucket) {
+        if (bucket == null) {
+            return;
+        }
+        while (!bucket.empty()) {
+            PairStringString headElement = bucket.popHeadElement();
+            putIntoTable(table, headElement.getKey(), headElement.getValue());
+        }
+    }
+
+    /**
+     * Puts element into the proper bucket of given table.
+     * Allocates bucket if it was empty and turns it into TreeBucket if it becomes too big
+     */
+    private static String putIntoTable(Bucket[] keyTable, String key, String value) {
+        int code = getCode(key, keyTable.length);
+        if (keyTable[code] == null) {
+            keyTable[code] = new List();
+        }
+        String content = keyTable[code].put(key, value);
+        if (content == null && keyTable[code] instanceof List
+                && keyTable[code].size() > TREEIFY_THRESHOLD) {
+            keyTable[code] = moveElements(keyTable[code], new TreeBucket());
+        }
+        return content;
+    }
+
+    /**
+     * Moves all elements from one Bucket to another.
+     * @return Bucket to which elements were moved
+     */
+    private static Bucket moveElements(Bucket from, Bucket to) {
+        while (!from.empty()) {
+            PairStringString element = from.popHeadElement();
+            to.put(element.getKey(), element.getValue());
+        }
+        return to;
+    }
 
-        for (List l : oldTable) {
-            while (!l.empty()) {
-                PairStringString headElement = l.popHeadElement();
-                put(headElement.getKey(), headElement.getValue());
+    private void setTable(Bucket[] newTable) {
+        modCount++;
+        table = newTable;
+        capacity = newTable.length;
+        threshold = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (long) (capacity * (double) loadFactor)));
+        shrinkThreshold = (int) Math.ceil(capacity * (double) shrinkLoadFactor);
+    }
+
+    /**
+     * Makes table of empty buckets. Buckets are allocated on demand.
+     */
+    private static Bucket[] newTable(int capacity) {
+        return new Bucket[capacity];
+    }
+
+    /**
+     * Spliterator over range of buckets.
+     * Splits by dividing the range in halves
+     */
+    private class HashTableSpliterator implements Spliterator<PairStringString> {
+        private final Bucket[] buckets;
+        private final int expectedModCount;
+        private int index;
+        private final int fence;
+        private long estimatedSize;
+
+        /**
+         * Whether estimatedSize is exact. True only for not yet split Spliterator.
+         */
+        private boolean exactSize;
+        private Iterator<PairStringString> current;
+
+        private HashTableSpliterator(Bucket[] buckets, int index, int fence,
+                                     long estimatedSize, boolean exactSize) {
+            this.buckets = buckets;
+            this.index = index;
+            this.fence = fence;
+            this.estimatedSize = estimatedSize;
+            this.exactSize = exactSize;
+            expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super PairStringString> action) {
+            while (current == null || !current.hasNext()) {
+                if (index >= fence) {
+                    return false;
+                }
+                Bucket bucket = buckets[index++];
+                if (bucket != null) {
+                    current = bucket.iterator();
+                }
+            }
+            action.accept(current.next());
+            checkForComodification();
+            if (exactSize) {
+                estimatedSize--;
+            }
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super PairStringString> action) {
+            if (current != null) {
+                current.forEachRemaining(action);
+                current = null;
+            }
+            for (; index < fence; index++) {
+                if (buckets[index] != null) {
+                    buckets[index].forEach(action);
+                }
+            }
+            checkForComodification();
+        }
+
+        /**
+         * Gives away the first half of remaining buckets.
+         * Bucket which is partially iterated stays here
+         */
+        @Override
+        public Spliterator<PairStringString> trySplit() {
+            int middle = (index + fence) >>> 1;
+            if (middle <= index) {
+                return null;
+            }
+            int start = index;
+            index = middle;
+            estimatedSize >>>= 1;
+            exactSize = false;
+            return new HashTableSpliterator(buckets, start, middle, estimatedSize, false);
+        }
+
+        @Override
+        public long estimateSize() {
+            return estimatedSize;
+        }
+
+        @Override
+        public int characteristics() {
+            return (exactSize ? SIZED : 0) | DISTINCT | NONNULL;
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
             }
         }
     }
 
+    private final float loadFactor;
+    private final float shrinkLoadFactor;
+    private final int initialCapacity;
+
     private int size;
     private int capacity;
-    private List[] table;
+
+    /**
+     * Number of structural modifications, used to make iterators fail-fast.
+     */
+    private int modCount;
+
+    /**
+     * Number of elements, on reaching which rehashing starts.
+     */
+    private int threshold;
+
+    /**
+     * Number of elements, below which shrinking starts.
+     */
+    private int shrinkThreshold;
+    private Bucket[] table;
+
+    /**
+     * Table being rehashed into table, or null if there is no rehashing in progress.
+     */
+    private Bucket[] oldTable;
+    private int rehashIndex;
+
+    /**
+     * Number of old buckets moved by every operation during current rehashing.
+     */
+    private int rehashStepSize = REHASH_STEP;
+
+    /**
+     * Number of tables allocated by growing or shrinking since creation. Not reset by clear.
+     */
+    private long resizeCount;
+
+    /**
+     * Total time of rehashing, including incremental moving of buckets.
+     */
+    private long resizeNanos;
 }
@@ -0,0 +1,24 @@
+package ru.hse.kostya.java.hashtable;
+
+/**
+ * Management interface of HashTable, exposed by HashTableMonitor.
+ * Attributes have the same meaning as in HashTableStats
+ */
+public interface HashTableMXBean {
+
+    int getSize();
+
+    int getCapacity();
+
+    double getLoadFactor();
+
+    int getMaxChainLength();
+
+    long[] getChainLengthHistogram();
+
+    int getTreeBucketCount();
+
+    long getResizeCount();
+
+    long getResizeNanos();
+}
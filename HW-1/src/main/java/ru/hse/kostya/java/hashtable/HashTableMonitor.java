@@ -0,0 +1,138 @@
+package ru.hse.kostya.java.hashtable;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Publishes stats of HashTable through JMX.
+ * HashTable is not thread-safe, while JMX attributes are read by other threads,
+ *      so the monitor reads stats holding lock of the HashTable.
+ *      Owner should hold the same lock while modifying HashTable,
+ *      otherwise attributes may fail to be read
+ * Snapshot of stats visits all buckets, so it is kept for refresh interval
+ *      and attributes read together by JMX console share one snapshot
+ */
+public class HashTableMonitor implements HashTableMXBean {
+
+    private static final String DOMAIN = "ru.hse.kostya.java.hashtable";
+    private static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofSeconds(1);
+
+    public HashTableMonitor(HashTable hashTable) {
+        this(hashTable, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Makes monitor, which takes new snapshot of stats not more often than once per refresh interval.
+     * @throws IllegalArgumentException if refresh interval is negative
+     */
+    public HashTableMonitor(HashTable hashTable, Duration refreshInterval) throws IllegalArgumentException {
+        if (refreshInterval.isNegative()) {
+            throw new IllegalArgumentException("refreshInterval cannot be negative");
+        }
+        this.hashTable = hashTable;
+        refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    /**
+     * Registers monitor of given HashTable in the platform MBeanServer.
+     * @param name distinguishes HashTables, becomes name key of ObjectName
+     * @throws IllegalArgumentException if HashTable with such name is already registered
+     */
+    public static HashTableMonitor register(HashTable hashTable, String name)
+            throws IllegalArgumentException {
+        var monitor = new HashTableMonitor(hashTable);
+        try {
+            monitor.objectName = new ObjectName(DOMAIN + ":type=HashTable,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, monitor.objectName);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("cannot register HashTable " + name, e);
+        }
+        return monitor;
+    }
+
+    /**
+     * Removes the monitor from the platform MBeanServer, if it was registered.
+     */
+    public void unregister() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (objectName == null || !server.isRegistered(objectName)) {
+            return;
+        }
+        try {
+            server.unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot unregister " + objectName, e);
+        }
+    }
+
+    public ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * Snapshot of stats, which is taken anew if the kept one is older than refresh interval.
+     */
+    private synchronized HashTableStats stats() {
+        long now = System.nanoTime();
+        if (cachedStats == null || now - cachedAt >= refreshIntervalNanos) {
+            synchronized (hashTable) {
+                cachedStats = hashTable.stats();
+            }
+            cachedAt = now;
+        }
+        return cachedStats;
+    }
+
+    @Override
+    public int getSize() {
+        return stats().getSize();
+    }
+
+    @Override
+    public int getCapacity() {
+        return stats().getCapacity();
+    }
+
+    @Override
+    public double getLoadFactor() {
+        return stats().getLoadFactor();
+    }
+
+    @Override
+    public int getMaxChainLength() {
+        return stats().getMaxChainLength();
+    }
+
+    @Override
+    public long[] getChainLengthHistogram() {
+        return stats().getChainLengthHistogram();
+    }
+
+    @Override
+    public int getTreeBucketCount() {
+        return stats().getTreeBucketCount();
+    }
+
+    @Override
+    public long getResizeCount() {
+        return stats().getResizeCount();
+    }
+
+    @Override
+    public long getResizeNanos() {
+        return stats().getResizeNanos();
+    }
+
+    private final HashTable hashTable;
+    private final long refreshIntervalNanos;
+    private HashTableStats cachedStats;
+    private long cachedAt;
+
+    /**
+     * Name under which the monitor is registered, or null if it was created directly.
+     */
+    private ObjectName objectName;
+}
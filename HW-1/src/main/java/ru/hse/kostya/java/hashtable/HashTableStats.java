@@ -0,0 +1,90 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of HashTable health.
+ * Shows how elements are spread over buckets and how much time rehashing took
+ */
+public class HashTableStats {
+    private final int size;
+    private final int capacity;
+    private final long[] chainLengthHistogram;
+    private final int treeBucketCount;
+    private final long resizeCount;
+    private final long resizeNanos;
+
+    HashTableStats(int size, int capacity, long[] chainLengthHistogram,
+                   int treeBucketCount, long resizeCount, long resizeNanos) {
+        this.size = size;
+        this.capacity = capacity;
+        this.chainLengthHistogram = chainLengthHistogram;
+        this.treeBucketCount = treeBucketCount;
+        this.resizeCount = resizeCount;
+        this.resizeNanos = resizeNanos;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Number of buckets. During rehashing it is capacity of the new table.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Actual average number of elements per bucket.
+     */
+    public double getLoadFactor() {
+        return capacity == 0 ? 0 : size / (double) capacity;
+    }
+
+    /**
+     * Number of buckets of every length.
+     * Element i is the number of buckets with exactly i elements,
+     *      the last element corresponds to the longest bucket
+     */
+    public long[] getChainLengthHistogram() {
+        return chainLengthHistogram.clone();
+    }
+
+    public int getMaxChainLength() {
+        return chainLengthHistogram.length - 1;
+    }
+
+    /**
+     * Number of buckets turned into TreeBucket because of collisions.
+     */
+    public int getTreeBucketCount() {
+        return treeBucketCount;
+    }
+
+    /**
+     * Number of times the table was replaced by a bigger or smaller one since HashTable creation.
+     */
+    public long getResizeCount() {
+        return resizeCount;
+    }
+
+    /**
+     * Total time spent on allocating new tables and moving elements there.
+     */
+    public long getResizeNanos() {
+        return resizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "HashTableStats{size=" + size
+                + ", capacity=" + capacity
+                + ", loadFactor=" + getLoadFactor()
+                + ", maxChainLength=" + getMaxChainLength()
+                + ", chainLengthHistogram=" + Arrays.toString(chainLengthHistogram)
+                + ", treeBucketCount=" + treeBucketCount
+                + ", resizeCount=" + resizeCount
+                + ", resizeNanos=" + resizeNanos + "}";
+    }
+}
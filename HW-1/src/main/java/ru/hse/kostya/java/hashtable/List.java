@@ -1,10 +1,13 @@
 package ru.hse.kostya.java.hashtable;
 
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
 /**
  * Data structure. Allows adding, removing and modifying element in linear time
  * Implemented as LinkedList
  */
-public class List {
+public class List implements Bucket {
 
     private Node head;
     private int size;
@@ -40,6 +43,7 @@ public class List {
     }
 
 
+    @Override
     public int size() {
         return size;
     }
@@ -47,6 +51,7 @@ public class List {
     /**
      * Checks whether there are no elements in List.
      */
+    @Override
     public boolean empty() {
         return size == 0;
     }
@@ -69,6 +74,7 @@ public class List {
     /**
      * Checks whether given key appears in List.
      */
+    @Override
     public boolean contains(String key) {
         return find(key) != null;
     }
@@ -77,6 +83,7 @@ public class List {
      * Returns values stored with given key, if any.
      * Null otherwise
      */
+    @Override
     public String get(String key) {
         Node pos = find(key);
         if (pos == null) {
@@ -90,6 +97,7 @@ public class List {
      * Modifies element with same key, if any.
      * Adds new element otherwise
      */
+    @Override
     public String put(String key, String value) {
         PairStringString p = new PairStringString(key, value);
         Node pos = find(key);
@@ -110,6 +118,7 @@ public class List {
     /**
      * Remove element with same key, if any.
      */
+    @Override
     public String remove(String key) {
         Node pos = find(key);
         if (pos == null) {
@@ -129,6 +138,7 @@ public class List {
      * Gets head element from List and removes it.
      * return null if List is empty
      */
+    @Override
     public PairStringString popHeadElement() {
         if (head == null) {
             return null;
@@ -141,9 +151,35 @@ public class List {
     }
 
 
+    /**
+     * Iterates over elements from head to tail.
+     */
+    @Override
+    public Iterator<PairStringString> iterator() {
+        return new Iterator<>() {
+            private Node now = head;
+
+            @Override
+            public boolean hasNext() {
+                return now != null;
+            }
+
+            @Override
+            public PairStringString next() {
+                if (now == null) {
+                    throw new NoSuchElementException();
+                }
+                PairStringString element = now.pairStringString;
+                now = now.next;
+                return element;
+            }
+        };
+    }
+
     /**
      * Deletes all content.
      */
+    @Override
     public void clear() {
         head = null;
         size = 0;
@@ -0,0 +1,862 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistent dictionary of string with the same interface as HashTable.
+ * Every put and remove is appended as a record to the active segment file
+ *      in the given directory, so a write costs one sequential append
+ * Active segment is replaced with a new one when it grows bigger than maxSegmentSize
+ * HashTable is used as in-memory key directory,
+ *      which maps every key to location of its latest record
+ * Closed segments get hint files with keys and locations of their records,
+ *      so opening the store reads hints instead of parsing every value
+ * Compaction copies live records of closed segments into a single segment
+ *      and deletes the old ones. It is started in background
+ *      when closed segments contain more garbage than live records
+ * All methods are synchronized, compaction holds the lock only for short periods
+ * Input/output errors are reported as UncheckedIOException
+ */
+public class LogStructuredHashTable implements Closeable {
+
+    private static final long DEFAULT_MAX_SEGMENT_SIZE = 64 << 20;
+
+    /**
+     * Background compaction starts when garbage takes more than this part of closed segments.
+     */
+    private static final double COMPACTION_GARBAGE_RATIO = 0.5;
+
+    /**
+     * Record consists of CRC32 of the rest of the record, key length, value length,
+     *      key bytes and value bytes
+     * Removal is recorded with value length TOMBSTONE and no value bytes
+     */
+    private static final int RECORD_HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int TOMBSTONE = -1;
+
+    /**
+     * Bit of key length, which is set when key and value are encoded by StringCodec.
+     * Records without it were written in UTF-8 by earlier versions and are still read
+     */
+    private static final int LOSSLESS = Integer.MIN_VALUE;
+
+    /**
+     * Hint file consists of HINT_MAGIC, number of entries, entries and CRC32 of everything before it.
+     * Entry is key length, key bytes encoded by StringCodec, offset and size of the record and whether it is tombstone
+     * Hint, which fails to validate, is ignored and the segment is scanned instead
+     */
+    private static final int HINT_MAGIC = 0x48494E32;
+    private static final int HINT_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int HINT_ENTRY_SIZE = Long.BYTES + Integer.BYTES + 1;
+
+    private static final Pattern DATA_FILE_NAME = Pattern.compile("(\\d+)\\.data");
+    private static final Pattern COMPACTED_HINT_FILE_NAME = Pattern.compile("(\\d+)\\.compact\\.hint");
+
+    /**
+     * Segment file opened for reading, and also for writing if it is active.
+     * Closed segments are never modified, only deleted by compaction
+     */
+    private static class Segment {
+        private final int id;
+        private final FileChannel channel;
+        private long size;
+
+        /**
+         * Total size of records, which are removed or overwritten by later ones.
+         */
+        private long garbage;
+
+        private Segment(int id, FileChannel channel) throws IOException {
+            this.id = id;
+            this.channel = channel;
+            size = channel.size();
+        }
+    }
+
+    /**
+     * Key and location of a record, as stored in hint files.
+     */
+    private static class HintEntry {
+        private final String key;
+        private final long offset;
+        private final int size;
+        private final boolean tombstone;
+
+        private HintEntry(String key, long offset, int size, boolean tombstone) {
+            this.key = key;
+            this.offset = offset;
+            this.size = size;
+            this.tombstone = tombstone;
+        }
+    }
+
+    /**
+     * Opens store in given directory with default maximum segment size.
+     * Creates directory if it does not exist
+     */
+    public LogStructuredHashTable(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens store in given directory.
+     * Finishes compaction, which was interrupted by crash,
+     *      then reads hint files, or segments themselves if there are no hints
+     * Incomplete record at the end of segment left by crash is cut off
+     * New records are always written to a new segment
+     * @param maxSegmentSize size in bytes after which active segment is closed
+     */
+    public LogStructuredHashTable(Path directory, long maxSegmentSize) throws IOException {
+        if (maxSegmentSize <= 0) {
+            throw new IllegalArgumentException("maxSegmentSize should be positive");
+        }
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        Files.createDirectories(directory);
+
+        try {
+            finishInterruptedCompaction();
+            for (int id : listSegmentIds()) {
+                var segment = new Segment(id, FileChannel.open(dataPath(id),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE));
+                segments.put(id, segment);
+                loadSegment(segment);
+            }
+            active = createSegment(segments.isEmpty() ? 0 : segments.lastKey() + 1);
+        } catch (IOException | RuntimeException exception) {
+            closeChannels();
+            throw exception;
+        }
+
+        compactor = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "LogStructuredHashTable compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized int size() {
+        return keyDirectory.size();
+    }
+
+    /**
+     * Checks whether given key appears in LogStructuredHashTable.
+     * Does not touch the disk
+     */
+    public synchronized boolean contains(String key) throws IllegalArgumentException {
+        ensureOpen();
+        return keyDirectory.contains(key);
+    }
+
+    /**
+     * Returns value by given key.
+     * Null in case there is no such key in LogStructuredHashTable
+     * Reads exactly one record from the disk
+     */
+    public synchronized String get(String key) throws IllegalArgumentException {
+        ensureOpen();
+        String location = keyDirectory.get(key);
+        try {
+            return location == null ? null : readValue(location);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Modifies element in LogStructuredHashTable with given key.
+     * Adds new element if there was no element with same key
+     * @return previous value stored with key, or null if there was none
+     */
+    public synchronized String put(String key, String value) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("value String cannot be null");
+        }
+        ensureOpen();
+        try {
+            String location = append(key, value);
+            String previous = keyDirectory.put(key, location);
+            return previous == null ? null : release(previous);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Removes element with given key from LogStructuredHashTable, if exists.
+     * Appends tombstone record
+     */
+    public synchronized String remove(String key) throws IllegalArgumentException {
+        ensureOpen();
+        if (!keyDirectory.contains(key)) {
+            return null;
+        }
+        try {
+            String tombstone = append(key, null);
+            active.garbage += sizeOf(tombstone);
+            return release(keyDirectory.remove(key));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Removes all elements by deleting all segments.
+     * Waits for compaction in progress to finish
+     */
+    public void clear() {
+        compactionLock.lock();
+        try {
+            synchronized (this) {
+                ensureOpen();
+                closeChannels();
+                //older segments are deleted first, so if process crashes in the middle
+                //      no removed element is restored
+                for (Segment segment : segments.values()) {
+                    Files.deleteIfExists(dataPath(segment.id));
+                    Files.deleteIfExists(hintPath(segment.id));
+                }
+                segments.clear();
+                keyDirectory.clear();
+                activeHint.clear();
+                active = createSegment(0);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything written so far to the disk.
+     */
+    public synchronized void sync() throws IOException {
+        ensureOpen();
+        active.channel.force(false);
+    }
+
+    /**
+     * Copies live records of all closed segments into a single segment
+     *      and deletes closed segments.
+     * Records are copied without holding the lock, so other operations proceed meanwhile
+     * Tombstones are dropped, as there are no older segments left to which they could apply
+     */
+    public void compact() throws IOException {
+        compact(false);
+    }
+
+    /**
+     * @param background whether it is background compaction,
+     *      which is finished even if close has already started waiting for it
+     */
+    private void compact(boolean background) throws IOException {
+        compactionLock.lock();
+        try {
+            final ArrayList<Segment> victims;
+            synchronized (this) {
+                if (!background) {
+                    ensureOpen();
+                }
+                victims = new ArrayList<>(segments.headMap(active.id).values());
+            }
+            if (victims.isEmpty()) {
+                return;
+            }
+
+            int compactedId = victims.get(victims.size() - 1).id;
+            var oldLocations = new ArrayList<String>();
+            var compactedHint = new ArrayList<HintEntry>();
+            try (FileChannel compacted = FileChannel.open(compactedDataPath(compactedId),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                long compactedSize = 0;
+                for (Segment victim : victims) {
+                    for (HintEntry entry : readHint(victim)) {
+                        if (entry.tombstone) {
+                            continue;
+                        }
+                        String location = location(victim.id, entry.offset, entry.size);
+                        synchronized (this) {
+                            if (!location.equals(keyDirectory.get(entry.key))) {
+                                continue;
+                            }
+                        }
+                        ByteBuffer record = ByteBuffer.allocate(entry.size);
+                        readFully(victim.channel, record, entry.offset);
+                        record.flip();
+                        writeFully(compacted, record, compactedSize);
+
+                        oldLocations.add(location);
+                        compactedHint.add(new HintEntry(entry.key, compactedSize, entry.size, false));
+                        compactedSize += entry.size;
+                    }
+                }
+                compacted.force(true);
+            }
+            //complete hint file marks compacted segment as ready to replace the old ones,
+            //writeHint syncs the directory, so both files are on the disk before old segments are deleted
+            writeHint(compactedHintPath(compactedId), compactedHint);
+
+            synchronized (this) {
+                for (Segment victim : victims) {
+                    victim.channel.close();
+                    segments.remove(victim.id);
+                }
+                replaceWithCompacted(compactedId);
+                var segment = new Segment(compactedId, FileChannel.open(dataPath(compactedId),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE));
+                segments.put(compactedId, segment);
+
+                for (int i = 0; i < compactedHint.size(); i++) {
+                    HintEntry entry = compactedHint.get(i);
+                    if (oldLocations.get(i).equals(keyDirectory.get(entry.key))) {
+                        keyDirectory.put(entry.key, location(compactedId, entry.offset, entry.size));
+                    } else {
+                        //element was modified while records were copied
+                        segment.garbage += entry.size;
+                    }
+                }
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Starts compaction in background thread.
+     * @return Future, which completes when compaction is finished
+     */
+    public synchronized Future<?> compactInBackground() {
+        ensureOpen();
+        backgroundCompaction = compactor.submit(() -> {
+            compact(true);
+            return null;
+        });
+        return backgroundCompaction;
+    }
+
+    /**
+     * Waits for background compaction, writes hint for active segment and closes all files.
+     * Operations started after close throw IllegalStateException
+     * Files are closed even if background compaction failed, its failure is thrown afterwards
+     */
+    @Override
+    public void close() throws IOException {
+        final Future<?> compaction;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            //marked under the lock before shutdown, so rollOver can't submit compaction afterwards
+            closed = true;
+            compaction = backgroundCompaction;
+        }
+        compactor.shutdown();
+        IOException failure = null;
+        if (compaction != null) {
+            try {
+                compaction.get();
+            } catch (ExecutionException exception) {
+                failure = new IOException("Background compaction failed", exception.getCause());
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                failure = new IOException("Interrupted while waiting for compaction", exception);
+            }
+        }
+
+        //compaction started by compact() before close finishes before files are closed
+        compactionLock.lock();
+        try {
+            synchronized (this) {
+                try {
+                    if (active.size == 0) {
+                        active.channel.close();
+                        Files.deleteIfExists(dataPath(active.id));
+                    } else {
+                        active.channel.force(true);
+                        writeHint(hintPath(active.id), activeHint);
+                    }
+                } finally {
+                    closeChannels();
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            if (failure == null) {
+                throw exception;
+            }
+            failure.addSuppressed(exception);
+        } finally {
+            compactionLock.unlock();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("LogStructuredHashTable is closed");
+        }
+    }
+
+    /**
+     * Location of record is stored in key directory as a String of eight chars:
+     *      two for segment id, four for offset and two for size.
+     */
+    private static String location(int segment, long offset, int size) {
+        return new String(new char[] {
+                (char) (segment >>> 16), (char) segment,
+                (char) (offset >>> 48), (char) (offset >>> 32), (char) (offset >>> 16), (char) offset,
+                (char) (size >>> 16), (char) size
+        });
+    }
+
+    private static int segmentOf(String location) {
+        return location.charAt(0) << 16 | location.charAt(1);
+    }
+
+    private static long offsetOf(String location) {
+        return (long) location.charAt(2) << 48 | (long) location.charAt(3) << 32
+                | (long) location.charAt(4) << 16 | location.charAt(5);
+    }
+
+    private static int sizeOf(String location) {
+        return location.charAt(6) << 16 | location.charAt(7);
+    }
+
+    /**
+     * Reads value of the record with given location and marks record as garbage.
+     */
+    private String release(String location) throws IOException {
+        String value = readValue(location);
+        segments.get(segmentOf(location)).garbage += sizeOf(location);
+        return value;
+    }
+
+    private String readValue(String location) throws IOException {
+        Segment segment = segments.get(segmentOf(location));
+        ByteBuffer record = ByteBuffer.allocate(sizeOf(location));
+        readFully(segment.channel, record, offsetOf(location));
+        if (!isValidRecord(record)) {
+            throw new IOException("Corrupted record in segment " + dataPath(segment.id));
+        }
+        int valueLength = record.getInt(2 * Integer.BYTES);
+        return decodeString(record, RECORD_HEADER_SIZE + keyLengthOf(record), valueLength);
+    }
+
+    private static int keyLengthOf(ByteBuffer record) {
+        return record.getInt(Integer.BYTES) & ~LOSSLESS;
+    }
+
+    /**
+     * Decodes key or value of a valid record.
+     */
+    private static String decodeString(ByteBuffer record, int offset, int length) throws IOException {
+        if ((record.getInt(Integer.BYTES) & LOSSLESS) == 0) {
+            return new String(record.array(), offset, length, StandardCharsets.UTF_8);
+        }
+        try {
+            return StringCodec.decode(record.array(), offset, length);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupted record", e);
+        }
+    }
+
+    /**
+     * Checks lengths and checksum of a record read into the buffer.
+     */
+    private static boolean isValidRecord(ByteBuffer record) {
+        if (record.limit() < RECORD_HEADER_SIZE) {
+            return false;
+        }
+        int keyLength = keyLengthOf(record);
+        int valueLength = record.getInt(2 * Integer.BYTES);
+        if (valueLength < TOMBSTONE
+                || RECORD_HEADER_SIZE + (long) keyLength + Math.max(valueLength, 0) != record.limit()) {
+            return false;
+        }
+        var crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, record.limit() - Integer.BYTES);
+        return (int) crc.getValue() == record.getInt(0);
+    }
+
+    /**
+     * Appends record to the active segment.
+     * Closes active segment and starts a new one, if it is full
+     * @param value value of the element or null for tombstone
+     * @return location of the record
+     */
+    private String append(String key, String value) throws IOException {
+        byte[] keyBytes = StringCodec.encode(key);
+        byte[] valueBytes = value == null ? new byte[0] : StringCodec.encode(value);
+        int size = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+        if (active.size > 0 && active.size + size > maxSegmentSize) {
+            rollOver();
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(size);
+        record.putInt(0);
+        record.putInt(keyBytes.length | LOSSLESS);
+        record.putInt(value == null ? TOMBSTONE : valueBytes.length);
+        record.put(keyBytes);
+        record.put(valueBytes);
+        var crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, size - Integer.BYTES);
+        record.putInt(0, (int) crc.getValue());
+        record.flip();
+
+        long offset = active.size;
+        writeFully(active.channel, record, offset);
+        active.size += size;
+        activeHint.add(new HintEntry(key, offset, size, value == null));
+        return location(active.id, offset, size);
+    }
+
+    /**
+     * Closes active segment, writes its hint file and starts a new segment.
+     * Schedules compaction if there is too much garbage
+     */
+    private void rollOver() throws IOException {
+        active.channel.force(false);
+        writeHint(hintPath(active.id), activeHint);
+        activeHint.clear();
+        active = createSegment(active.id + 1);
+
+        long closedSize = 0;
+        long closedGarbage = 0;
+        for (Segment segment : segments.headMap(active.id).values()) {
+            closedSize += segment.size;
+            closedGarbage += segment.garbage;
+        }
+        if (closedGarbage > COMPACTION_GARBAGE_RATIO * closedSize
+                && (backgroundCompaction == null || backgroundCompaction.isDone())) {
+            compactInBackground();
+        }
+    }
+
+    private Segment createSegment(int id) throws IOException {
+        var segment = new Segment(id, FileChannel.open(dataPath(id),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Applies records of the segment to key directory.
+     */
+    private void loadSegment(Segment segment) throws IOException {
+        for (HintEntry entry : readHint(segment)) {
+            final String previous;
+            if (entry.tombstone) {
+                previous = keyDirectory.remove(entry.key);
+                segment.garbage += entry.size;
+            } else {
+                previous = keyDirectory.put(entry.key, location(segment.id, entry.offset, entry.size));
+            }
+            if (previous != null) {
+                segments.get(segmentOf(previous)).garbage += sizeOf(previous);
+            }
+        }
+    }
+
+    /**
+     * Reads hint file of the closed segment.
+     * If there is no valid hint file, scans segment itself and writes hint file for it
+     */
+    private ArrayList<HintEntry> readHint(Segment segment) throws IOException {
+        Path hintPath = hintPath(segment.id);
+        ArrayList<HintEntry> hint = Files.exists(hintPath) ? parseHint(hintPath, segment.size) : null;
+        if (hint == null) {
+            hint = scanSegment(segment);
+            writeHint(hintPath, hint);
+        }
+        return hint;
+    }
+
+    /**
+     * Reads and validates hint file.
+     * @return entries or null if hint is damaged or refers beyond the segment of given size
+     */
+    private static ArrayList<HintEntry> parseHint(Path hintPath, long segmentSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(hintPath));
+        if (buffer.limit() < HINT_HEADER_SIZE + Integer.BYTES || buffer.getInt(0) != HINT_MAGIC) {
+            return null;
+        }
+        var crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - Integer.BYTES);
+        if ((int) crc.getValue() != buffer.getInt(buffer.limit() - Integer.BYTES)) {
+            return null;
+        }
+        buffer.limit(buffer.limit() - Integer.BYTES);
+        buffer.position(HINT_HEADER_SIZE);
+
+        int count = buffer.getInt(Integer.BYTES);
+        if (count < 0) {
+            return null;
+        }
+        var hint = new ArrayList<HintEntry>();
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                return null;
+            }
+            int keyLength = buffer.getInt();
+            if (keyLength < 0 || keyLength > buffer.remaining() - HINT_ENTRY_SIZE) {
+                return null;
+            }
+            String key;
+            try {
+                key = StringCodec.decode(buffer.array(), buffer.position(), keyLength);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            buffer.position(buffer.position() + keyLength);
+            long offset = buffer.getLong();
+            int size = buffer.getInt();
+            boolean tombstone = buffer.get() != 0;
+            if (offset < 0 || size < RECORD_HEADER_SIZE || offset + size > segmentSize) {
+                return null;
+            }
+            hint.add(new HintEntry(key, offset, size, tombstone));
+        }
+        return buffer.hasRemaining() ? null : hint;
+    }
+
+    /**
+     * Reads all records of the segment.
+     * Cuts segment at the first incomplete or corrupted record
+     */
+    private static ArrayList<HintEntry> scanSegment(Segment segment) throws IOException {
+        var hint = new ArrayList<HintEntry>();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        long offset = 0;
+        while (offset + RECORD_HEADER_SIZE <= segment.size) {
+            header.clear();
+            readFully(segment.channel, header, offset);
+            int keyLength = keyLengthOf(header);
+            int valueLength = header.getInt(2 * Integer.BYTES);
+            long size = RECORD_HEADER_SIZE + (long) keyLength + Math.max(valueLength, 0);
+            if (valueLength < TOMBSTONE || offset + size > segment.size) {
+                break;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate((int) size);
+            readFully(segment.channel, record, offset);
+            if (!isValidRecord(record)) {
+                break;
+            }
+            String key;
+            try {
+                key = decodeString(record, RECORD_HEADER_SIZE, keyLength);
+            } catch (IOException e) {
+                break;
+            }
+            hint.add(new HintEntry(key, offset, (int) size, valueLength == TOMBSTONE));
+            offset += size;
+        }
+
+        if (offset != segment.size) {
+            segment.channel.truncate(offset);
+            segment.channel.force(true);
+            segment.size = offset;
+        }
+        return hint;
+    }
+
+    /**
+     * Writes hint to temporary file, forces it and then renames it,
+     *      so hint file is either complete or absent.
+     * Directory is synced afterwards, so the new name survives crash
+     */
+    private static void writeHint(Path hintPath, ArrayList<HintEntry> hint) throws IOException {
+        Path temporary = hintPath.resolveSibling(hintPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            var crc = new CRC32();
+            var out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc)));
+            out.writeInt(HINT_MAGIC);
+            out.writeInt(hint.size());
+            for (HintEntry entry : hint) {
+                byte[] key = StringCodec.encode(entry.key);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.size);
+                out.writeBoolean(entry.tombstone);
+            }
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, hintPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(hintPath.getParent());
+    }
+
+    /**
+     * Forces directory entries to the disk, so created, renamed and deleted files survive crash.
+     * Some platforms can't open a directory, there it is left to the file system
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (IOException exception) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Deletes segments replaced by compacted one and gives compacted segment its final name.
+     * Steps are ordered so that after crash at any moment
+     *      finishInterruptedCompaction can complete them
+     */
+    private void replaceWithCompacted(int compactedId) throws IOException {
+        for (int id : listSegmentIds()) {
+            if (id <= compactedId) {
+                Files.deleteIfExists(dataPath(id));
+                Files.deleteIfExists(hintPath(id));
+            }
+        }
+        Files.move(compactedDataPath(compactedId), dataPath(compactedId), StandardCopyOption.ATOMIC_MOVE);
+        Files.move(compactedHintPath(compactedId), hintPath(compactedId), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(directory);
+    }
+
+    /**
+     * Completes compaction, whose output was fully written before crash,
+     *      and deletes output of compactions, which were not.
+     */
+    private void finishInterruptedCompaction() throws IOException {
+        var completed = new ArrayList<Integer>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = COMPACTED_HINT_FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    completed.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        for (int id : completed) {
+            if (!Files.exists(compactedDataPath(id))) {
+                //data file was already renamed, so old segments are deleted, damaged hint is replaced on reading
+                Files.move(compactedHintPath(id), hintPath(id),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else if (parseHint(compactedHintPath(id), Files.size(compactedDataPath(id))) != null) {
+                replaceWithCompacted(id);
+            } else {
+                //compaction was not complete, old segments are intact
+                Files.delete(compactedHintPath(id));
+            }
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.{compact,tmp}")) {
+            for (Path file : files) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private ArrayList<Integer> listSegmentIds() throws IOException {
+        var ids = new ArrayList<Integer>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Matcher matcher = DATA_FILE_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    private void closeChannels() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    private Path dataPath(int id) {
+        return directory.resolve(String.format("%010d.data", id));
+    }
+
+    private Path hintPath(int id) {
+        return directory.resolve(String.format("%010d.hint", id));
+    }
+
+    private Path compactedDataPath(int id) {
+        return directory.resolve(String.format("%010d.compact", id));
+    }
+
+    private Path compactedHintPath(int id) {
+        return directory.resolve(String.format("%010d.compact.hint", id));
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of segment");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final HashTable keyDirectory = new HashTable();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+
+    /**
+     * Segment where new records are appended. It has the greatest id.
+     */
+    private Segment active;
+
+    /**
+     * Hint entries of records in active segment, written to hint file when it is closed.
+     */
+    private final ArrayList<HintEntry> activeHint = new ArrayList<>();
+
+    private final ExecutorService compactor;
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private Future<?> backgroundCompaction;
+    private boolean closed;
+}
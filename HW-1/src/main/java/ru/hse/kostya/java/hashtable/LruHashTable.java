@@ -0,0 +1,318 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Bounded dictionary of string with the same interface as HashTable.
+ * Every element has weight, given by weigher, which is 1 by default,
+ *      so that bound is just the maximum number of elements
+ * When total weight exceeds the bound, least recently used elements are evicted
+ * Elements are chained in buckets and also linked into a list in order of access,
+ *      so lookup, reordering and eviction take constant time
+ * Counts hits, misses and evictions, which helps to choose the bound
+ */
+public class LruHashTable {
+
+    /**
+     * Weigher, which estimates memory taken by characters of key and value in bytes.
+     */
+    public static final ToLongBiFunction<String, String> CHARACTER_BYTES =
+            (key, value) -> 2L * (key.length() + value.length());
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Receives elements evicted from LruHashTable.
+     * Is not called for elements removed by remove or clear
+     */
+    public interface EvictionListener {
+        void onEviction(String key, String value);
+    }
+
+    /**
+     * Element in bucket chain and in the list of elements in order of access.
+     */
+    private static class Node {
+        private final int hash;
+        private final String key;
+        private String value;
+        private long weight;
+        private Node nextInBucket;
+        private Node before;
+        private Node after;
+
+        private Node(int hash, String key, String value, long weight, Node nextInBucket) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.nextInBucket = nextInBucket;
+        }
+    }
+
+    /**
+     * Makes LruHashTable, which holds at most maxSize elements.
+     */
+    public LruHashTable(int maxSize) {
+        this(maxSize, (key, value) -> 1);
+    }
+
+    /**
+     * Makes LruHashTable, which holds elements of total weight at most maxWeight.
+     * @param weigher gives non negative weight of element, it is called once on every put
+     */
+    public LruHashTable(long maxWeight, ToLongBiFunction<String, String> weigher) {
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("maxWeight cannot be negative");
+        }
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        table = new Node[MIN_CAPACITY];
+    }
+
+    public void setEvictionListener(EvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long weight() {
+        return weight;
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Number of get calls, which found the key.
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Number of get calls, which did not find the key.
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Getting hash from given key.
+     * Spreads higher bits of String hashCode, as only lower ones are used for indexing
+     */
+    private static int hash(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        int code = key.hashCode();
+        return code ^ (code >>> 16);
+    }
+
+    private Node find(String key, int hash) {
+        for (Node node = table[hash & (table.length - 1)]; node != null; node = node.nextInBucket) {
+            if (node.hash == hash && node.key.equals(key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether given key appears in LruHashTable.
+     * Does not count as access
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        return find(key, hash(key)) != null;
+    }
+
+    /**
+     * Returns value by given key and marks element as the most recently used.
+     * Null in case there is no such key in LruHashTable
+     */
+    public String get(String key) throws IllegalArgumentException {
+        Node node = find(key, hash(key));
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        moveToTail(node);
+        return node.value;
+    }
+
+    /**
+     * Modifies element in LruHashTable with given key.
+     * Adds new element if there was no element with same key
+     * Element becomes the most recently used, then least recently used elements
+     *      are evicted until total weight fits the bound.
+     *      Element, which alone is heavier than the bound, is evicted too
+     * @return previous value stored with key, or null if there was none
+     */
+    public String put(String key, String value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("value String cannot be null");
+        }
+        int hash = hash(key);
+        long elementWeight = weigher.applyAsLong(key, value);
+        if (elementWeight < 0) {
+            throw new IllegalArgumentException("weight of element cannot be negative");
+        }
+
+        String content = null;
+        Node node = find(key, hash);
+        if (node != null) {
+            content = node.value;
+            node.value = value;
+            weight += elementWeight - node.weight;
+            node.weight = elementWeight;
+            moveToTail(node);
+        } else {
+            int index = hash & (table.length - 1);
+            node = new Node(hash, key, value, elementWeight, table[index]);
+            table[index] = node;
+            linkLast(node);
+            size++;
+            weight += elementWeight;
+            ensureCapacity();
+        }
+
+        while (weight > maxWeight) {
+            evict(head);
+        }
+        return content;
+    }
+
+    /**
+     * Removes element with given key from LruHashTable, if exists.
+     */
+    public String remove(String key) throws IllegalArgumentException {
+        Node node = find(key, hash(key));
+        if (node == null) {
+            return null;
+        }
+        unlink(node);
+        return node.value;
+    }
+
+    /**
+     * Removes all elements. Counters are kept.
+     */
+    public void clear() {
+        table = new Node[MIN_CAPACITY];
+        head = null;
+        tail = null;
+        size = 0;
+        weight = 0;
+    }
+
+    private void evict(Node node) {
+        unlink(node);
+        evictionCount++;
+        if (evictionListener != null) {
+            evictionListener.onEviction(node.key, node.value);
+        }
+    }
+
+    /**
+     * Removes node from its bucket and from the list of elements.
+     */
+    private void unlink(Node node) {
+        int index = node.hash & (table.length - 1);
+        if (table[index] == node) {
+            table[index] = node.nextInBucket;
+        } else {
+            Node previous = table[index];
+            while (previous.nextInBucket != node) {
+                previous = previous.nextInBucket;
+            }
+            previous.nextInBucket = node.nextInBucket;
+        }
+
+        if (node.before == null) {
+            head = node.after;
+        } else {
+            node.before.after = node.after;
+        }
+        if (node.after == null) {
+            tail = node.before;
+        } else {
+            node.after.before = node.before;
+        }
+        node.before = null;
+        node.after = null;
+
+        size--;
+        weight -= node.weight;
+    }
+
+    private void linkLast(Node node) {
+        node.before = tail;
+        node.after = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.after = node;
+        }
+        tail = node;
+    }
+
+    private void moveToTail(Node node) {
+        if (node == tail) {
+            return;
+        }
+        if (node.before == null) {
+            head = node.after;
+        } else {
+            node.before.after = node.after;
+        }
+        node.after.before = node.before;
+        linkLast(node);
+    }
+
+    /**
+     * Rehashing doubles capacity and occurs when table becomes three-quarters full.
+     * Access order is not affected
+     */
+    private void ensureCapacity() {
+        if (size <= table.length - (table.length >>> 2) || table.length >= MAX_CAPACITY) {
+            return;
+        }
+        table = new Node[2 * table.length];
+        for (Node node = head; node != null; node = node.after) {
+            int index = node.hash & (table.length - 1);
+            node.nextInBucket = table[index];
+            table[index] = node;
+        }
+    }
+
+    private final long maxWeight;
+    private final ToLongBiFunction<String, String> weigher;
+    private EvictionListener evictionListener;
+
+    private int size;
+    private long weight;
+    private Node[] table;
+
+    /**
+     * The least recently used element.
+     */
+    private Node head;
+
+    /**
+     * The most recently used element.
+     */
+    private Node tail;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+}
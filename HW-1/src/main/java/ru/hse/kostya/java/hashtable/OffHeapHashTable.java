@@ -0,0 +1,350 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Dictionary of string with the same interface as HashTable,
+ *      which keeps its content outside of Java heap.
+ * Keys and values are encoded by StringCodec and appended as records
+ *      to slabs of direct memory
+ * Index is open addressing table of record addresses and key hash codes,
+ *      so garbage collector sees only a few primitive arrays
+ *      no matter how many elements are stored
+ * Modified and removed records are left in slabs as garbage,
+ *      which is dropped by copying live records to new slabs
+ *      when there is more garbage than live data
+ */
+public class OffHeapHashTable {
+
+    private static final int MIN_CAPACITY = 2;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Size of ordinary slab in bytes. Bigger records get slab of their own.
+     */
+    private static final int SLAB_SIZE = 1 << 20;
+
+    /**
+     * Record consists of key length, value length, key bytes and value bytes.
+     */
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * Address of empty index slot. Addresses of records are
+     *      slab number plus one in high half and offset in low half,
+     *      so they are never zero
+     */
+    private static final long EMPTY = 0;
+
+    public OffHeapHashTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Makes an empty OffHeapHashTable.
+     * No direct memory is allocated until the first put
+     * @param capacity number of index slots, rounded up to the power of two
+     */
+    public OffHeapHashTable(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity cannot be negative");
+        }
+        int actualCapacity = MIN_CAPACITY;
+        while (actualCapacity < capacity && actualCapacity < MAX_CAPACITY) {
+            actualCapacity *= 2;
+        }
+        addresses = new long[actualCapacity];
+        hashes = new int[actualCapacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of bytes of direct memory taken by slabs, including garbage.
+     */
+    public long allocatedBytes() {
+        long result = 0;
+        for (ByteBuffer slab : slabs) {
+            result += slab.capacity();
+        }
+        return result;
+    }
+
+    /**
+     * Getting hash from given key.
+     * Spreads higher bits of String hashCode, as only lower ones are used for indexing
+     */
+    private static int hash(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        int code = key.hashCode();
+        return code ^ (code >>> 16);
+    }
+
+    private ByteBuffer slab(long address) {
+        return slabs.get((int) (address >>> 32) - 1);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private int keyLength(long address) {
+        return slab(address).getInt(offset(address));
+    }
+
+    private int valueLength(long address) {
+        return slab(address).getInt(offset(address) + Integer.BYTES);
+    }
+
+    private int recordSize(long address) {
+        return RECORD_HEADER_SIZE + keyLength(address) + valueLength(address);
+    }
+
+    /**
+     * Compares key of the record with given bytes without copying it to heap.
+     */
+    private boolean keyEquals(long address, byte[] key) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        if (slab.getInt(offset) != key.length) {
+            return false;
+        }
+        offset += RECORD_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (slab.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String readValue(long address) {
+        ByteBuffer slab = slab(address);
+        int offset = offset(address);
+        int keyLength = slab.getInt(offset);
+        var value = new byte[slab.getInt(offset + Integer.BYTES)];
+        slab.duplicate().position(offset + RECORD_HEADER_SIZE + keyLength).get(value);
+        return StringCodec.decode(value);
+    }
+
+    /**
+     * Finds index slot containing record with given key.
+     * @return index of the slot, or index of the empty slot where probing stopped
+     *      if there is no such key
+     */
+    private int findSlot(byte[] key, int hash) {
+        int mask = addresses.length - 1;
+        int index = hash & mask;
+        while (addresses[index] != EMPTY) {
+            if (hashes[index] == hash && keyEquals(addresses[index], key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether given key appears in OffHeapHashTable.
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        return addresses[findSlot(StringCodec.encode(key), hash)] != EMPTY;
+    }
+
+    /**
+     * Returns value by given key.
+     * Null in case there is no such key in OffHeapHashTable
+     */
+    public String get(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        long address = addresses[findSlot(StringCodec.encode(key), hash)];
+        return address == EMPTY ? null : readValue(address);
+    }
+
+    /**
+     * Modifies element in OffHeapHashTable with given key.
+     * Adds new element if there was no element with same key
+     * New record is appended in any case, the old one becomes garbage
+     * @return previous value stored with key, or null if there was none
+     */
+    public String put(String key, String value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("value String cannot be null");
+        }
+        int hash = hash(key);
+        byte[] keyBytes = StringCodec.encode(key);
+        int index = findSlot(keyBytes, hash);
+        long address = append(keyBytes, StringCodec.encode(value));
+
+        if (addresses[index] != EMPTY) {
+            String content = readValue(addresses[index]);
+            release(addresses[index]);
+            addresses[index] = address;
+            compactIfNeeded();
+            return content;
+        }
+
+        if (ensureCapacity()) {
+            index = findSlot(keyBytes, hash);
+        }
+        addresses[index] = address;
+        hashes[index] = hash;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes element with given key from OffHeapHashTable, if exists.
+     * Entries of the same probe sequence are moved back to fill the gap
+     */
+    public String remove(String key) throws IllegalArgumentException {
+        int hash = hash(key);
+        int index = findSlot(StringCodec.encode(key), hash);
+        if (addresses[index] == EMPTY) {
+            return null;
+        }
+        String content = readValue(addresses[index]);
+        release(addresses[index]);
+        size--;
+
+        int mask = addresses.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (addresses[next] != EMPTY) {
+            int home = hashes[next] & mask;
+            //entry may be moved to the gap only if the gap lies on its probe path
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                addresses[gap] = addresses[next];
+                hashes[gap] = hashes[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        addresses[gap] = EMPTY;
+        hashes[gap] = 0;
+
+        compactIfNeeded();
+        return content;
+    }
+
+    /**
+     * Removes all elements and drops all slabs.
+     */
+    public void clear() {
+        addresses = new long[MIN_CAPACITY];
+        hashes = new int[MIN_CAPACITY];
+        slabs = new ArrayList<>();
+        current = null;
+        size = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Writes record to the end of current slab.
+     * Starts new slab if record does not fit
+     * @return address of the record
+     */
+    private long append(byte[] key, byte[] value) {
+        int recordSize = RECORD_HEADER_SIZE + key.length + value.length;
+        if (current == null || current.capacity() - writeOffset < recordSize) {
+            current = ByteBuffer.allocateDirect(Math.max(SLAB_SIZE, recordSize));
+            slabs.add(current);
+            writeOffset = 0;
+        }
+
+        long address = ((long) slabs.size() << 32) | writeOffset;
+        current.putInt(writeOffset, key.length);
+        current.putInt(writeOffset + Integer.BYTES, value.length);
+        current.duplicate().position(writeOffset + RECORD_HEADER_SIZE).put(key).put(value);
+        writeOffset += recordSize;
+        liveBytes += recordSize;
+        return address;
+    }
+
+    /**
+     * Marks record as garbage.
+     */
+    private void release(long address) {
+        int recordSize = recordSize(address);
+        liveBytes -= recordSize;
+        garbageBytes += recordSize;
+    }
+
+    /**
+     * Copies live records to new slabs, if there is more garbage than live data.
+     * Small garbage is kept, as copying it is not worth while
+     */
+    private void compactIfNeeded() {
+        if (garbageBytes <= liveBytes || garbageBytes < SLAB_SIZE) {
+            return;
+        }
+
+        final ArrayList<ByteBuffer> oldSlabs = slabs;
+        slabs = new ArrayList<>();
+        current = null;
+        liveBytes = 0;
+        garbageBytes = 0;
+        for (int i = 0; i < addresses.length; i++) {
+            if (addresses[i] == EMPTY) {
+                continue;
+            }
+            ByteBuffer slab = oldSlabs.get((int) (addresses[i] >>> 32) - 1);
+            int offset = offset(addresses[i]);
+            var key = new byte[slab.getInt(offset)];
+            var value = new byte[slab.getInt(offset + Integer.BYTES)];
+            slab.duplicate().position(offset + RECORD_HEADER_SIZE).get(key).get(value);
+            addresses[i] = append(key, value);
+        }
+    }
+
+    /**
+     * Rehashing doubles capacity and occurs when index becomes more than half full.
+     * Only index is rebuilt, records stay where they are
+     * @return true if entries were moved
+     */
+    private boolean ensureCapacity() {
+        if (2 * (size + 1) <= addresses.length) {
+            return false;
+        }
+
+        final long[] oldAddresses = addresses;
+        final int[] oldHashes = hashes;
+        addresses = new long[2 * oldAddresses.length];
+        hashes = new int[2 * oldHashes.length];
+
+        int mask = addresses.length - 1;
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] == EMPTY) {
+                continue;
+            }
+            int index = oldHashes[i] & mask;
+            while (addresses[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            addresses[index] = oldAddresses[i];
+            hashes[index] = oldHashes[i];
+        }
+        return true;
+    }
+
+    private int size;
+    private long[] addresses;
+    private int[] hashes;
+
+    private ArrayList<ByteBuffer> slabs = new ArrayList<>();
+
+    /**
+     * Last slab, where new records are appended, or null if there are no slabs.
+     */
+    private ByteBuffer current;
+    private int writeOffset;
+    private long liveBytes;
+    private long garbageBytes;
+}
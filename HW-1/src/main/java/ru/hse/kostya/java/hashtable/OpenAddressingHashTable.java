@@ -0,0 +1,195 @@
+package ru.hse.kostya.java.hashtable;
+
+/**
+ * Dictionary of string with the same interface as HashTable.
+ * Collision resolution by open addressing with linear probing
+ * Keys, values and their hash codes are stored in parallel arrays,
+ *      so no objects are allocated per entry and probing stays cache-local
+ * Removal shifts following entries back instead of leaving tombstones
+ * Rehashing doubles capacity and occurs when table becomes more than half full
+ */
+public class OpenAddressingHashTable {
+
+    private static final int MIN_CAPACITY = 2;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    public OpenAddressingHashTable() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Makes an empty OpenAddressingHashTable.
+     * @param capacity number of slots, rounded up to the power of two
+     */
+    public OpenAddressingHashTable(int capacity) {
+        allocate(roundUpToPowerOfTwo(capacity));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getting hash from given key.
+     * Spreads higher bits of String hashCode, as only lower ones are used for indexing
+     */
+    private static int hash(String key) throws IllegalArgumentException {
+        if (key == null) {
+            throw new IllegalArgumentException("key String cannot be null");
+        }
+        int code = key.hashCode();
+        return code ^ (code >>> 16);
+    }
+
+    /**
+     * Finds slot containing given key.
+     * @return index of the slot, or index of the empty slot where probing stopped
+     *      if there is no such key
+     */
+    private int findSlot(String key, int hash) {
+        int mask = keys.length - 1;
+        int index = hash & mask;
+        while (keys[index] != null) {
+            if (hashes[index] == hash && keys[index].equals(key)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Checks whether given key appears in OpenAddressingHashTable.
+     */
+    public boolean contains(String key) throws IllegalArgumentException {
+        return keys[findSlot(key, hash(key))] != null;
+    }
+
+    /**
+     * Returns value by given key.
+     * Null in case there is no such key in OpenAddressingHashTable
+     */
+    public String get(String key) throws IllegalArgumentException {
+        return values[findSlot(key, hash(key))];
+    }
+
+    /**
+     * Modifies element in OpenAddressingHashTable with given key.
+     * Adds new element if there was no element with same key
+     * @return previous value stored with key, or null if there was none
+     */
+    public String put(String key, String value) throws IllegalArgumentException {
+        if (value == null) {
+            throw new IllegalArgumentException("value String cannot be null");
+        }
+        int hash = hash(key);
+        int index = findSlot(key, hash);
+        if (keys[index] != null) {
+            String content = values[index];
+            values[index] = value;
+            return content;
+        }
+
+        if (ensureCapacity()) {
+            index = findSlot(key, hash);
+        }
+        keys[index] = key;
+        values[index] = value;
+        hashes[index] = hash;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes element with given key from OpenAddressingHashTable, if exists.
+     * Entries of the same probe sequence are moved back to fill the gap
+     */
+    public String remove(String key) throws IllegalArgumentException {
+        int index = findSlot(key, hash(key));
+        if (keys[index] == null) {
+            return null;
+        }
+        String content = values[index];
+        size--;
+
+        int mask = keys.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != null) {
+            int home = hashes[next] & mask;
+            //entry may be moved to the gap only if the gap lies on its probe path
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                hashes[gap] = hashes[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        hashes[gap] = 0;
+
+        return content;
+    }
+
+    /**
+     * Removes all elements and drops allocated arrays.
+     */
+    public void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Rehashing doubles capacity and occurs when table becomes more than half full.
+     * @return true if entries were moved
+     */
+    private boolean ensureCapacity() {
+        if (2 * (size + 1) <= keys.length) {
+            return false;
+        }
+
+        final String[] oldKeys = keys;
+        final String[] oldValues = values;
+        final int[] oldHashes = hashes;
+        allocate(2 * oldKeys.length);
+
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) {
+                continue;
+            }
+            int index = oldHashes[i] & mask;
+            while (keys[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+            hashes[index] = oldHashes[i];
+        }
+        return true;
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new String[capacity];
+        hashes = new int[capacity];
+    }
+
+    private static int roundUpToPowerOfTwo(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity cannot be negative");
+        }
+        int result = MIN_CAPACITY;
+        while (result < capacity && result < MAX_CAPACITY) {
+            result *= 2;
+        }
+        return result;
+    }
+
+    private int size;
+    private String[] keys;
+    private String[] values;
+    private int[] hashes;
+}
@@ -0,0 +1,199 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Binary format of HashTable snapshot.
+ * Snapshot is header, bucket contents and CRC32 of everything before it
+ * Header is MAGIC, VERSION, load factor, shrink load factor, initial capacity, capacity and size
+ * Snapshots of FIRST_VERSION have no shrink load factor
+ * Every bucket, in order of buckets, is number of its elements
+ *      followed by the elements as key and value
+ * Numbers of elements and lengths of strings are unsigned varints,
+ *      strings are encoded by StringCodec, snapshots before LOSSLESS_VERSION have them in UTF-8
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x48545342;
+    static final int FIRST_VERSION = 1;
+    static final int LOSSLESS_VERSION = 3;
+    static final int VERSION = 3;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SnapshotFormat() {
+    }
+
+    /**
+     * Buffered writer to channel, which computes checksum of written bytes.
+     */
+    static class Writer {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 checksum = new CRC32();
+
+        Writer(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void writeInt(int value) throws IOException {
+            ensureSpace(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void writeFloat(float value) throws IOException {
+            ensureSpace(Float.BYTES);
+            buffer.putFloat(value);
+        }
+
+        void writeVarint(int value) throws IOException {
+            ensureSpace(5);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeString(String string) throws IOException {
+            byte[] bytes = StringCodec.encode(string);
+            writeVarint(bytes.length);
+            if (bytes.length <= buffer.remaining()) {
+                buffer.put(bytes);
+                return;
+            }
+            flush();
+            checksum.update(bytes);
+            writeFully(ByteBuffer.wrap(bytes));
+        }
+
+        /**
+         * Writes checksum and everything buffered.
+         */
+        void finish() throws IOException {
+            flush();
+            buffer.putInt((int) checksum.getValue());
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void ensureSpace(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            checksum.update(buffer.array(), 0, buffer.position());
+            buffer.flip();
+            writeFully(buffer);
+            buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Buffered reader from channel, which computes checksum of read bytes.
+     */
+    static class Reader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+        private final CRC32 checksum = new CRC32();
+
+        Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        int readInt() throws IOException {
+            ensureAvailable(Integer.BYTES);
+            return buffer.getInt();
+        }
+
+        float readFloat() throws IOException {
+            ensureAvailable(Float.BYTES);
+            return buffer.getFloat();
+        }
+
+        int readVarint() throws IOException {
+            int result = 0;
+            for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+                ensureAvailable(1);
+                byte current = buffer.get();
+                result |= (current & 0x7F) << shift;
+                if (current >= 0) {
+                    return result;
+                }
+            }
+            throw new IOException("corrupted snapshot: too long varint");
+        }
+
+        /**
+         * Reads string written by snapshot of given version.
+         */
+        String readString(int version) throws IOException {
+            int length = readVarint();
+            if (length < 0) {
+                throw new IOException("corrupted snapshot: negative string length");
+            }
+            ensureAvailable(length);
+            final String string;
+            if (version < LOSSLESS_VERSION) {
+                string = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            } else {
+                try {
+                    string = StringCodec.decode(buffer.array(), buffer.position(), length);
+                } catch (IllegalArgumentException exception) {
+                    throw new IOException("corrupted snapshot: " + exception.getMessage(), exception);
+                }
+            }
+            buffer.position(buffer.position() + length);
+            return string;
+        }
+
+        /**
+         * Reads checksum and compares it with checksum of read bytes.
+         */
+        void finish() throws IOException {
+            checksum.update(buffer.array(), 0, buffer.position());
+            buffer.compact().flip();
+            ensureAvailable(Integer.BYTES);
+            if (buffer.getInt() != (int) checksum.getValue()) {
+                throw new IOException("corrupted snapshot: checksum mismatch");
+            }
+        }
+
+        /**
+         * Reads from channel until buffer contains given number of unread bytes.
+         * Buffer grows for strings, which do not fit,
+         *      but only as far as bytes really arrive, so corrupted length ends with EOFException
+         */
+        private void ensureAvailable(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            checksum.update(buffer.array(), 0, buffer.position());
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (!buffer.hasRemaining()) {
+                    buffer = ByteBuffer.allocate((int) Math.min(bytes, 2L * buffer.capacity())).put(buffer.flip());
+                }
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("unexpected end of snapshot");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
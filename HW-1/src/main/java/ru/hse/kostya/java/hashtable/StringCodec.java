@@ -0,0 +1,69 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lossless encoding of strings into bytes.
+ * Encoded string is a flag byte followed by one byte per char (Latin-1) if all chars are below 256
+ *      and by two bytes per char (UTF-16, big-endian) otherwise
+ * Unlike UTF-8 it keeps unpaired surrogates, so different strings never get equal bytes
+ * Encoding is deterministic, so equal strings always get equal bytes and may be compared in place
+ */
+final class StringCodec {
+
+    /**
+     * First byte of encoded string, telling whether chars take one or two bytes.
+     */
+    static final byte LATIN_1 = 0;
+    static final byte UTF_16 = 1;
+
+    private StringCodec() {
+    }
+
+    static byte[] encode(String string) {
+        boolean latin1 = true;
+        for (int i = 0; i < string.length() && latin1; i++) {
+            latin1 = string.charAt(i) <= 0xFF;
+        }
+        if (latin1) {
+            var bytes = new byte[1 + string.length()];
+            bytes[0] = LATIN_1;
+            for (int i = 0; i < string.length(); i++) {
+                bytes[1 + i] = (byte) string.charAt(i);
+            }
+            return bytes;
+        }
+        var bytes = new byte[1 + 2 * string.length()];
+        bytes[0] = UTF_16;
+        for (int i = 0; i < string.length(); i++) {
+            bytes[1 + 2 * i] = (byte) (string.charAt(i) >>> 8);
+            bytes[2 + 2 * i] = (byte) string.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Decodes string of given encoded length starting from offset.
+     * @throws IllegalArgumentException if bytes are not an encoded string
+     */
+    static String decode(byte[] bytes, int offset, int length) throws IllegalArgumentException {
+        if (length < 1) {
+            throw new IllegalArgumentException("encoded string cannot be empty");
+        }
+        if (bytes[offset] == LATIN_1) {
+            return new String(bytes, offset + 1, length - 1, StandardCharsets.ISO_8859_1);
+        }
+        if (bytes[offset] != UTF_16 || length % 2 != 1) {
+            throw new IllegalArgumentException("malformed encoded string");
+        }
+        var chars = new char[(length - 1) / 2];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (((bytes[offset + 1 + 2 * i] & 0xFF) << 8) | (bytes[offset + 2 + 2 * i] & 0xFF));
+        }
+        return new String(chars);
+    }
+
+    static String decode(byte[] bytes) throws IllegalArgumentException {
+        return decode(bytes, 0, bytes.length);
+    }
+}
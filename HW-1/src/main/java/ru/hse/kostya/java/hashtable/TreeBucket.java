@@ -0,0 +1,88 @@
+package ru.hse.kostya.java.hashtable;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bucket implemented as balanced search tree.
+ * Keys are ordered by hashCode and then by natural String order,
+ *      so operations take logarithmic time even if all hash codes are equal
+ * Used by HashTable instead of List for buckets with too many elements
+ */
+public class TreeBucket implements Bucket {
+
+    private static final Comparator<String> HASH_THEN_KEY_ORDER =
+            Comparator.comparingInt(String::hashCode).thenComparing(Comparator.naturalOrder());
+
+    private final TreeMap<String, String> tree = new TreeMap<>(HASH_THEN_KEY_ORDER);
+
+    @Override
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public boolean empty() {
+        return tree.isEmpty();
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return tree.containsKey(key);
+    }
+
+    @Override
+    public String get(String key) {
+        return tree.get(key);
+    }
+
+    @Override
+    public String put(String key, String value) {
+        return tree.put(key, value);
+    }
+
+    @Override
+    public String remove(String key) {
+        return tree.remove(key);
+    }
+
+    /**
+     * Gets element with the least key from TreeBucket and removes it.
+     * return null if TreeBucket is empty
+     */
+    @Override
+    public PairStringString popHeadElement() {
+        Map.Entry<String, String> entry = tree.pollFirstEntry();
+        if (entry == null) {
+            return null;
+        }
+        return new PairStringString(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Iterates over elements in order of keys.
+     */
+    @Override
+    public Iterator<PairStringString> iterator() {
+        Iterator<Map.Entry<String, String>> entries = tree.entrySet().iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public PairStringString next() {
+                Map.Entry<String, String> entry = entries.next();
+                return new PairStringString(entry.getKey(), entry.getValue());
+            }
+        };
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+    }
+}
@@ -0,0 +1,120 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactHashTableTest {
+
+    private CompactHashTable t;
+
+    @BeforeEach
+    void initCompactHashTable() {
+        t = new CompactHashTable();
+    }
+
+    @Test
+    void putGetRemove() {
+        assertNull(t.put("a", "b"));
+        assertEquals("b", t.put("a", "c"));
+        assertEquals("c", t.get("a"));
+        assertTrue(t.contains("a"));
+        assertFalse(t.contains("b"));
+        assertEquals(1, t.size());
+        assertEquals("c", t.remove("a"));
+        assertNull(t.remove("a"));
+        assertEquals(0, t.size());
+    }
+
+    @Test
+    void emptyStrings() {
+        t.put("", "");
+        t.put("a", "");
+        t.put("", "b");
+        assertEquals("b", t.get(""));
+        assertEquals("", t.get("a"));
+        assertEquals(2, t.size());
+    }
+
+    @Test
+    void nonLatin1Strings() {
+        t.put("\u043a\u043b\u044e\u0447", "\u0437\u043d\u0430\u0447\u0435\u043d\u0438\u0435");
+        t.put("\u00e9t\u00e9", "\u00ff\u00fe");
+        t.put("\ud83d\ude00", "emoji");
+        assertEquals("\u0437\u043d\u0430\u0447\u0435\u043d\u0438\u0435", t.get("\u043a\u043b\u044e\u0447"));
+        assertEquals("\u00ff\u00fe", t.get("\u00e9t\u00e9"));
+        assertEquals("emoji", t.get("\ud83d\ude00"));
+        assertNull(t.get("\u00e9t\u00e8"));
+        assertNull(t.get("ete"));
+    }
+
+    @Test
+    void longStrings() {
+        String key = "k".repeat(300);
+        String value = "\u0436".repeat(2_000_000);
+        t.put(key, value);
+        t.put("small", "value");
+        assertEquals(value, t.get(key));
+        assertEquals("value", t.get("small"));
+    }
+
+    @Test
+    void clear() {
+        for (int i = 0; i < 100; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        t.clear();
+        assertEquals(0, t.size());
+        assertEquals(0, t.allocatedBytes());
+        assertNull(t.get("1"));
+        t.put("1", "b");
+        assertEquals("b", t.get("1"));
+    }
+
+    @Test
+    void garbageIsCompacted() {
+        String value = "v".repeat(1000);
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < 100; i++) {
+                t.put(Integer.toString(i), value + round);
+            }
+        }
+        assertEquals(100, t.size());
+        assertTrue(t.allocatedBytes() <= 4 << 20);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(value + 99, t.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void behavesLikeHashMap() {
+        var random = new Random(12);
+        var expected = new HashMap<String, String>();
+        for (int i = 0; i < 200_000; i++) {
+            String key = Integer.toString(random.nextInt(10_000));
+            String value = random.nextBoolean() ? "value" + i : "\u0444" + i;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, value), t.put(key, value));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), t.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), t.get(key));
+            }
+            assertEquals(expected.size(), t.size());
+        }
+    }
+
+    @Test
+    void nullsThrow() {
+        assertThrows(IllegalArgumentException.class, () -> t.put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put("a", null));
+        assertThrows(IllegalArgumentException.class, () -> t.get(null));
+    }
+}
@@ -0,0 +1,163 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentHashTableTest {
+
+    private static final int KEYS_PER_THREAD = 50_000;
+
+    private ConcurrentHashTable t;
+
+    @BeforeEach
+    void initHashTable() {
+        t = new ConcurrentHashTable();
+    }
+
+    /**
+     * Runs given action in numberOfThreads threads simultaneously.
+     * Action receives number of its thread
+     */
+    private static void runInThreads(int numberOfThreads, IntConsumer action) throws InterruptedException {
+        var startLatch = new CountDownLatch(1);
+        var threads = new Thread[numberOfThreads];
+        var errors = new Throwable[numberOfThreads];
+        Arrays.setAll(threads, i -> new Thread(() -> {
+            try {
+                startLatch.await();
+                action.accept(i);
+            } catch (Throwable throwable) {
+                errors[i] = throwable;
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Throwable error : errors) {
+            if (error != null) {
+                throw new AssertionError(error);
+            }
+        }
+    }
+
+    @Test
+    void size() {
+        assertEquals(0, t.size());
+        t.put("a", "b");
+        assertEquals(1, t.size());
+        t.put("a", "c");
+        assertEquals(1, t.size());
+        t.remove("a");
+        assertEquals(0, t.size());
+    }
+
+    @Test
+    void contains() {
+        assertFalse(t.contains("a"));
+        t.put("a", "b");
+        assertTrue(t.contains("a"));
+    }
+
+    @Test
+    void get() {
+        assertNull(t.get("a"));
+        t.put("a", "b");
+        assertEquals("b", t.get("a"));
+    }
+
+    @Test
+    void put() {
+        t.put("a", "b");
+        assertEquals("b", t.put("a", "c"));
+        assertEquals("c", t.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put("a", null));
+    }
+
+    @Test
+    void remove() {
+        t.put("a", "b");
+        assertNull(t.remove("b"));
+        assertEquals("b", t.remove("a"));
+        assertNull(t.get("a"));
+    }
+
+    @Test
+    void clear() {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        t.clear();
+        assertEquals(0, t.size());
+        assertFalse(t.contains("1"));
+        t.put("1", "b");
+        assertEquals("b", t.get("1"));
+    }
+
+    @Test
+    void concurrentPutsAndRemoves() throws InterruptedException {
+        int numberOfThreads = 8;
+        runInThreads(numberOfThreads, thread -> {
+            for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                assertNull(t.put(thread + ":" + i, Integer.toString(i)));
+            }
+            for (int i = 0; i < KEYS_PER_THREAD; i += 2) {
+                assertEquals(Integer.toString(i), t.remove(thread + ":" + i));
+            }
+        });
+
+        assertEquals(numberOfThreads * KEYS_PER_THREAD / 2, t.size());
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                assertEquals(i % 2 == 0 ? null : Integer.toString(i), t.get(thread + ":" + i));
+            }
+        }
+    }
+
+    @Test
+    void readersSeeEveryCompletedPut() throws InterruptedException {
+        int numberOfThreads = 4;
+        runInThreads(numberOfThreads, thread -> {
+            if (thread == 0) {
+                for (int i = 0; i < 4 * KEYS_PER_THREAD; i++) {
+                    t.put(Integer.toString(i), "a");
+                }
+                return;
+            }
+            //keys are added in increasing order, so when some key is seen
+            //      all the previous ones should be seen too, despite rehashing
+            int seen = 0;
+            while (seen < 4 * KEYS_PER_THREAD) {
+                if (t.contains(Integer.toString(seen))) {
+                    assertEquals("a", t.get(Integer.toString(seen / 2)));
+                    assertEquals("a", t.get(Integer.toString(seen / 3)));
+                    seen++;
+                }
+            }
+        });
+    }
+
+    @Test
+    void sameKeysFromDifferentThreads() throws InterruptedException {
+        runInThreads(8, thread -> {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 1000; i++) {
+                    t.put(Integer.toString(i), Integer.toString(thread));
+                    t.remove(Integer.toString(i + 1000));
+                    t.put(Integer.toString(i + 1000), "b");
+                }
+            }
+        });
+        assertEquals(2000, t.size());
+    }
+}
@@ -0,0 +1,149 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CopyOnWriteHashTableTest {
+
+    private CopyOnWriteHashTable t;
+
+    @BeforeEach
+    void initCopyOnWriteHashTable() {
+        t = new CopyOnWriteHashTable();
+    }
+
+    @Test
+    void putGetRemove() {
+        assertNull(t.put("a", "b"));
+        assertEquals("b", t.put("a", "c"));
+        assertEquals("c", t.get("a"));
+        assertTrue(t.contains("a"));
+        assertFalse(t.contains("b"));
+        assertEquals(1, t.size());
+        assertEquals("c", t.remove("a"));
+        assertNull(t.remove("a"));
+        assertEquals(0, t.size());
+        assertNull(t.get("a"));
+    }
+
+    @Test
+    void snapshotDoesNotChange() {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i), "old");
+        }
+        CopyOnWriteHashTable.Snapshot snapshot = t.snapshot();
+        for (int i = 0; i < 1000; i += 2) {
+            t.remove(Integer.toString(i));
+        }
+        t.put("1", "new");
+        t.put("new", "new");
+        t.clear();
+
+        assertEquals(0, t.size());
+        assertEquals(1000, snapshot.size());
+        assertEquals("old", snapshot.get("0"));
+        assertEquals("old", snapshot.get("1"));
+        assertFalse(snapshot.contains("new"));
+
+        var elements = new HashMap<String, String>();
+        for (PairStringString element : snapshot) {
+            assertNull(elements.put(element.getKey(), element.getValue()));
+        }
+        assertEquals(1000, elements.size());
+    }
+
+    @Test
+    void collidingKeys() {
+        String[] keys = HashTableTest.collidingKeys(6);
+        for (String key : keys) {
+            t.put(key, key);
+        }
+        assertEquals(keys.length, t.size());
+        for (String key : keys) {
+            assertEquals(key, t.get(key));
+        }
+        assertNull(t.get("AaAa"));
+        int count = 0;
+        for (PairStringString element : t.snapshot()) {
+            assertEquals(element.getKey(), element.getValue());
+            count++;
+        }
+        assertEquals(keys.length, count);
+        for (String key : keys) {
+            assertEquals(key, t.remove(key));
+        }
+        assertEquals(0, t.size());
+        assertFalse(t.snapshot().iterator().hasNext());
+    }
+
+    @Test
+    void behavesLikeHashMap() {
+        var random = new Random(14);
+        var expected = new HashMap<String, String>();
+        for (int i = 0; i < 200_000; i++) {
+            String key = Integer.toString(random.nextInt(5_000));
+            String value = Integer.toString(i);
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, value), t.put(key, value));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), t.remove(key));
+                    break;
+                default:
+                    assertEquals(expected.get(key), t.get(key));
+            }
+            assertEquals(expected.size(), t.size());
+        }
+    }
+
+    @Test
+    void readersSeeConsistentSnapshots() throws InterruptedException {
+        var done = new AtomicBoolean();
+        var failure = new AtomicReference<Throwable>();
+        var readers = new Thread[3];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        //writer adds keys in order, so snapshot of size n has exactly keys below n
+                        CopyOnWriteHashTable.Snapshot snapshot = t.snapshot();
+                        int size = snapshot.size();
+                        if (size > 0) {
+                            assertEquals(Integer.toString(size - 1), snapshot.get(Integer.toString(size - 1)));
+                            assertEquals("0", snapshot.get("0"));
+                        }
+                        assertFalse(snapshot.contains(Integer.toString(size)));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            readers[i].start();
+        }
+        for (int i = 0; i < 100_000; i++) {
+            t.put(Integer.toString(i), Integer.toString(i));
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(100_000, t.size());
+    }
+
+    @Test
+    void nullsThrow() {
+        assertThrows(IllegalArgumentException.class, () -> t.put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put("a", null));
+        assertThrows(IllegalArgumentException.class, () -> t.get(null));
+        assertThrows(IllegalArgumentException.class, () -> t.snapshot().get(null));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrozenHashTableTest {
+
+    private static FrozenHashTable freezeNumbers(int n) {
+        var hashTable = new HashTable();
+        for (int i = 0; i < n; i++) {
+            hashTable.put("key" + i, "value" + i);
+        }
+        return hashTable.freeze();
+    }
+
+    @Test
+    void emptyTable() {
+        FrozenHashTable frozen = new HashTable().freeze();
+        assertEquals(0, frozen.size());
+        assertNull(frozen.get("a"));
+        assertFalse(frozen.contains("a"));
+        assertFalse(frozen.iterator().hasNext());
+    }
+
+    @Test
+    void findsAllKeys() {
+        for (int n : new int[] {1, 2, 3, 5, 17, 1000, 100_000}) {
+            FrozenHashTable frozen = freezeNumbers(n);
+            assertEquals(n, frozen.size());
+            for (int i = 0; i < n; i++) {
+                assertEquals("value" + i, frozen.get("key" + i));
+            }
+            for (int i = n; i < n + 100; i++) {
+                assertFalse(frozen.contains("key" + i));
+            }
+        }
+    }
+
+    @Test
+    void collidingKeys() {
+        var hashTable = new HashTable();
+        for (String key : HashTableTest.collidingKeys(10)) {
+            hashTable.put(key, key);
+        }
+        FrozenHashTable frozen = hashTable.freeze();
+        for (String key : HashTableTest.collidingKeys(10)) {
+            assertEquals(key, frozen.get(key));
+        }
+        assertNull(frozen.get("AaAa"));
+    }
+
+    @Test
+    void independentOfSource() {
+        var hashTable = new HashTable();
+        hashTable.put("a", "1");
+        FrozenHashTable frozen = hashTable.freeze();
+        hashTable.put("a", "2");
+        hashTable.put("b", "3");
+        assertEquals("1", frozen.get("a"));
+        assertNull(frozen.get("b"));
+    }
+
+    @Test
+    void iteratesOverAllElements() {
+        var elements = new HashMap<String, String>();
+        for (PairStringString element : freezeNumbers(500)) {
+            assertNull(elements.put(element.getKey(), element.getValue()));
+        }
+        assertEquals(500, elements.size());
+        assertEquals("value7", elements.get("key7"));
+    }
+
+    @Test
+    void nullKeyIsRejected() {
+        FrozenHashTable frozen = freezeNumbers(10);
+        assertThrows(IllegalArgumentException.class, () -> frozen.get(null));
+    }
+}
@@ -0,0 +1,67 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashTableMonitorTest {
+
+    private HashTable t;
+    private HashTableMonitor monitor;
+
+    @BeforeEach
+    void register() {
+        t = new HashTable();
+        monitor = HashTableMonitor.register(t, "test");
+    }
+
+    @AfterEach
+    void unregister() {
+        monitor.unregister();
+    }
+
+    @Test
+    void attributesAreReadable() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(100, server.getAttribute(monitor.getObjectName(), "Size"));
+        assertEquals(128, server.getAttribute(monitor.getObjectName(), "Capacity"));
+        assertEquals(7L, server.getAttribute(monitor.getObjectName(), "ResizeCount"));
+        long[] histogram = (long[]) server.getAttribute(monitor.getObjectName(), "ChainLengthHistogram");
+        assertEquals(monitor.getMaxChainLength() + 1, histogram.length);
+    }
+
+    @Test
+    void statsAreKeptForRefreshInterval() {
+        var hashTable = new HashTable();
+        var cached = new HashTableMonitor(hashTable, Duration.ofHours(1));
+        var fresh = new HashTableMonitor(hashTable, Duration.ZERO);
+        assertEquals(0, cached.getSize());
+        assertEquals(0, fresh.getSize());
+        hashTable.put("a", "b");
+        assertEquals(0, cached.getSize());
+        assertEquals(1, cached.getCapacity());
+        assertEquals(1, fresh.getSize());
+        assertThrows(IllegalArgumentException.class, () -> new HashTableMonitor(hashTable, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    void sameNameCannotBeRegisteredTwice() {
+        assertThrows(IllegalArgumentException.class, () -> HashTableMonitor.register(new HashTable(), "test"));
+    }
+
+    @Test
+    void unregisterRemovesBean() {
+        monitor.unregister();
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(monitor.getObjectName()));
+        monitor.unregister();
+    }
+}
@@ -3,6 +3,24 @@ package ru.hse.kostya.java.hashtable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.zip.CRC32;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class HashTableTest {
@@ -62,4 +80,487 @@ class HashTableTest {
         t.clear();
         assertTrue(t.size() == 0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void putAfterClear() {
+        t.put("a", "b");
+        t.clear();
+        t.put("a", "c");
+        assertEquals("c", t.get("a"));
+        assertEquals(1, t.size());
+    }
+
+    @Test
+    void manyElements() {
+        for (int i = 0; i < 100_000; i++) {
+            assertNull(t.put(Integer.toString(i), Integer.toString(-i)));
+        }
+        assertEquals(100_000, t.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(Integer.toString(-i), t.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void operationsDuringRehash() {
+        for (int i = 0; i < 1024; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        //next put starts rehashing, which is done by following operations
+        t.put("1024", "a");
+        for (int i = 0; i < 1025; i += 2) {
+            assertEquals("a", t.remove(Integer.toString(i)));
+            assertTrue(t.contains(Integer.toString(i + 1)) || i + 1 == 1025);
+            assertFalse(t.contains(Integer.toString(i)));
+        }
+        assertEquals(512, t.size());
+        for (int i = 1; i < 1025; i += 2) {
+            assertEquals("a", t.put(Integer.toString(i), "b"));
+        }
+        for (int i = 1; i < 1025; i += 2) {
+            assertEquals("b", t.get(Integer.toString(i)));
+        }
+        assertEquals(512, t.size());
+    }
+
+    /**
+     * Makes 2^n different keys with equal hashCode.
+     * "Aa" and "BB" have equal hashCode, so do all their concatenations of same length
+     */
+    static String[] collidingKeys(int n) {
+        var keys = new String[1 << n];
+        for (int mask = 0; mask < keys.length; mask++) {
+            var builder = new StringBuilder();
+            for (int bit = 0; bit < n; bit++) {
+                builder.append((mask & (1 << bit)) == 0 ? "Aa" : "BB");
+            }
+            keys[mask] = builder.toString();
+        }
+        return keys;
+    }
+
+    @Test
+    void collidingKeysStayLogarithmic() {
+        String[] keys = collidingKeys(16);
+        //with linear scan of the bucket this takes minutes
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (String key : keys) {
+                t.put(key, key);
+            }
+            for (String key : keys) {
+                assertEquals(key, t.get(key));
+            }
+            for (int i = 0; i < keys.length; i += 2) {
+                assertEquals(keys[i], t.remove(keys[i]));
+            }
+            for (int i = 0; i < keys.length; i++) {
+                assertEquals(i % 2 == 1, t.contains(keys[i]));
+            }
+        });
+        assertEquals(keys.length / 2, t.size());
+    }
+
+    @Test
+    void presizedConstruction() {
+        assertThrows(IllegalArgumentException.class, () -> new HashTable(-1, 0.75f));
+        assertThrows(IllegalArgumentException.class, () -> new HashTable(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> new HashTable(10, Float.NaN));
+
+        var presized = new HashTable(1000, 0.75f);
+        for (int i = 0; i < 5000; i++) {
+            presized.put(Integer.toString(i), "a");
+        }
+        assertEquals(5000, presized.size());
+        presized.clear();
+        presized.put("a", "b");
+        assertEquals("b", presized.get("a"));
+    }
+
+    @Test
+    void putAll() {
+        t.put("0", "old");
+        var elements = new HashMap<String, String>();
+        for (int i = 0; i < 10_000; i++) {
+            elements.put(Integer.toString(i), Integer.toString(-i));
+        }
+        t.putAll(elements);
+        assertEquals(10_000, t.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(Integer.toString(-i), t.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void putAllWithNullLeavesTableUnchanged() {
+        var elements = new HashMap<String, String>();
+        elements.put("a", "b");
+        elements.put("c", null);
+        assertThrows(IllegalArgumentException.class, () -> t.putAll(elements));
+        assertEquals(0, t.size());
+        assertFalse(t.contains("a"));
+    }
+
+    @Test
+    void getAll() {
+        t.put("a", "b");
+        t.put("c", "d");
+        Map<String, String> values = t.getAll(Arrays.asList("c", "x", "a"));
+        assertEquals(2, values.size());
+        assertEquals("d", values.get("c"));
+        assertEquals("b", values.get("a"));
+        assertEquals(Arrays.asList("c", "a"), new ArrayList<>(values.keySet()));
+    }
+
+    @Test
+    void iterator() {
+        assertFalse(t.iterator().hasNext());
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i), Integer.toString(-i));
+        }
+        var seen = new HashSet<String>();
+        for (PairStringString element : t) {
+            assertEquals(Integer.toString(-Integer.parseInt(element.getKey())), element.getValue());
+            assertTrue(seen.add(element.getKey()));
+        }
+        assertEquals(1000, seen.size());
+    }
+
+    @Test
+    void keyAndValueIterators() {
+        t.put("a", "b");
+        t.put("c", "d");
+        var keys = new HashSet<String>();
+        t.keyIterator().forEachRemaining(keys::add);
+        assertEquals(Set.of("a", "c"), keys);
+        var values = new HashSet<String>();
+        t.valueIterator().forEachRemaining(values::add);
+        assertEquals(Set.of("b", "d"), values);
+    }
+
+    @Test
+    void iteratorSeesElementsDuringRehash() {
+        for (int i = 0; i < 1025; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        //the last put has started rehashing
+        assertEquals(1025, t.stream().map(PairStringString::getKey).distinct().count());
+    }
+
+    @Test
+    void iteratorIsFailFast() {
+        t.put("a", "b");
+        t.put("c", "d");
+        Iterator<PairStringString> iterator = t.iterator();
+        iterator.next();
+        t.put("e", "f");
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+
+    @Test
+    void parallelStream() {
+        for (int i = 0; i < 100_000; i++) {
+            t.put(Integer.toString(i), Integer.toString(i));
+        }
+        long sum = t.stream().parallel().mapToLong(element -> Long.parseLong(element.getValue())).sum();
+        assertEquals(100_000L * 99_999 / 2, sum);
+        assertEquals(100_000, t.stream().parallel().count());
+    }
+
+    @Test
+    void spliteratorSplitsIntoDisjointParts() {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        Spliterator<PairStringString> first = t.spliterator();
+        assertEquals(1000, first.getExactSizeIfKnown());
+        Spliterator<PairStringString> second = first.trySplit();
+        assertNotNull(second);
+        var keys = new HashSet<String>();
+        first.forEachRemaining(element -> assertTrue(keys.add(element.getKey())));
+        second.forEachRemaining(element -> assertTrue(keys.add(element.getKey())));
+        assertEquals(1000, keys.size());
+    }
+
+    @Test
+    void statsOfEmptyTable() {
+        HashTableStats stats = t.stats();
+        assertEquals(0, stats.getSize());
+        assertEquals(1, stats.getCapacity());
+        assertEquals(0, stats.getMaxChainLength());
+        assertArrayEquals(new long[] {1}, stats.getChainLengthHistogram());
+        assertEquals(0, stats.getResizeCount());
+        assertEquals(0, stats.getResizeNanos());
+    }
+
+    @Test
+    void statsCountElementsAndResizes() {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        HashTableStats stats = t.stats();
+        assertEquals(1000, stats.getSize());
+        assertEquals(1024, stats.getCapacity());
+        assertEquals(1000 / 1024.0, stats.getLoadFactor(), 1e-9);
+        assertEquals(10, stats.getResizeCount());
+        assertTrue(stats.getResizeNanos() > 0);
+
+        long[] histogram = stats.getChainLengthHistogram();
+        assertEquals(stats.getMaxChainLength(), histogram.length - 1);
+        long elements = 0;
+        for (int length = 0; length < histogram.length; length++) {
+            elements += length * histogram[length];
+        }
+        assertEquals(1000, elements);
+    }
+
+    @Test
+    void statsShowCollisions() {
+        t = new HashTable(100, 1);
+        for (String key : collidingKeys(4)) {
+            t.put(key, key);
+        }
+        HashTableStats stats = t.stats();
+        assertEquals(16, stats.getMaxChainLength());
+        assertEquals(1, stats.getChainLengthHistogram()[16]);
+        assertEquals(1, stats.getTreeBucketCount());
+        assertEquals(0, stats.getResizeCount());
+    }
+
+    private static byte[] snapshotOf(HashTable hashTable) throws IOException {
+        var out = new ByteArrayOutputStream();
+        hashTable.writeSnapshot(Channels.newChannel(out));
+        return out.toByteArray();
+    }
+
+    private static HashTable loadSnapshot(byte[] snapshot) throws IOException {
+        return HashTable.readSnapshot(Channels.newChannel(new ByteArrayInputStream(snapshot)));
+    }
+
+    @Test
+    void snapshotRestoresElementsAndCapacity() throws IOException {
+        for (int i = 0; i < 10_000; i++) {
+            t.put("key" + i, i % 3 == 0 ? "\u0437\u043d\u0430\u0447" + i : "value" + i);
+        }
+        for (String key : collidingKeys(5)) {
+            t.put(key, key);
+        }
+        t.put("long", "a".repeat(200_000));
+        t.put("", "");
+
+        HashTable loaded = loadSnapshot(snapshotOf(t));
+        assertEquals(t.size(), loaded.size());
+        for (PairStringString element : t) {
+            assertEquals(element.getValue(), loaded.get(element.getKey()));
+        }
+        HashTableStats expectedStats = t.stats();
+        HashTableStats stats = loaded.stats();
+        assertEquals(expectedStats.getCapacity(), stats.getCapacity());
+        assertArrayEquals(expectedStats.getChainLengthHistogram(), stats.getChainLengthHistogram());
+        assertEquals(1, stats.getTreeBucketCount());
+        assertEquals(0, stats.getResizeCount());
+
+        loaded.put("new", "element");
+        assertEquals("element", loaded.get("new"));
+        loaded.clear();
+        assertEquals(1, loaded.stats().getCapacity());
+    }
+
+    @Test
+    void snapshotKeepsUnpairedSurrogates() throws IOException {
+        String[] strings = {"\uD800x", "x\uDC00", "\uDBFF", "\uDC00\uD800", "?x", "\u00FF"};
+        for (String string : strings) {
+            t.put(string, string + "\uD801");
+        }
+        HashTable loaded = loadSnapshot(snapshotOf(t));
+        assertEquals(strings.length, loaded.size());
+        for (String string : strings) {
+            assertEquals(string + "\uD801", loaded.get(string));
+        }
+        assertFalse(loaded.contains("?"));
+    }
+
+    @Test
+    void loadsUtf8SnapshotOfPreviousVersion() throws IOException {
+        ByteBuffer snapshot = ByteBuffer.allocate(7 * Integer.BYTES + 5 + Integer.BYTES)
+                .putInt(0x48545342).putInt(2).putFloat(1).putFloat(0.25f)
+                .putInt(1).putInt(1).putInt(1)
+                .put(new byte[] {1, 1, 'a', 1, 'b'});
+        var crc = new CRC32();
+        crc.update(snapshot.array(), 0, snapshot.position());
+        snapshot.putInt((int) crc.getValue());
+        HashTable loaded = loadSnapshot(snapshot.array());
+        assertEquals(1, loaded.size());
+        assertEquals("b", loaded.get("a"));
+    }
+
+    @Test
+    void snapshotOfEmptyTable() throws IOException {
+        HashTable loaded = loadSnapshot(snapshotOf(new HashTable(100, 0.5f)));
+        assertEquals(0, loaded.size());
+        assertEquals(202, loaded.stats().getCapacity());
+    }
+
+    @Test
+    void corruptedSnapshotIsRejected() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            t.put("key" + i, "value" + i);
+        }
+        byte[] snapshot = snapshotOf(t);
+
+        byte[] flipped = snapshot.clone();
+        flipped[snapshot.length / 2] ^= 1;
+        assertThrows(IOException.class, () -> loadSnapshot(flipped));
+        assertThrows(EOFException.class, () -> loadSnapshot(Arrays.copyOf(snapshot, snapshot.length - 1)));
+        assertThrows(IOException.class, () -> loadSnapshot("not a snapshot".getBytes()));
+    }
+
+    private static byte[] snapshotHeader(int capacity, int size) {
+        return ByteBuffer.allocate(7 * Integer.BYTES)
+                .putInt(0x48545342).putInt(2).putFloat(1).putFloat(0.25f)
+                .putInt(1).putInt(capacity).putInt(size)
+                .array();
+    }
+
+    @Test
+    void snapshotWithHugeCapacityIsRejected() {
+        assertThrows(EOFException.class, () -> loadSnapshot(snapshotHeader(Integer.MAX_VALUE - 8, 0)));
+    }
+
+    @Test
+    void snapshotWithWrongStringLengthIsRejected() {
+        byte[] header = snapshotHeader(1, 1);
+        byte[] negativeLength = Arrays.copyOf(header, header.length + 6);
+        negativeLength[header.length] = 1;
+        negativeLength[header.length + 1] = (byte) 0xFF;
+        negativeLength[header.length + 2] = (byte) 0xFF;
+        negativeLength[header.length + 3] = (byte) 0xFF;
+        negativeLength[header.length + 4] = (byte) 0xFF;
+        negativeLength[header.length + 5] = 0x0F;
+        assertThrows(IOException.class, () -> loadSnapshot(negativeLength));
+
+        byte[] hugeLength = negativeLength.clone();
+        hugeLength[header.length + 5] = 0x07;
+        assertThrows(EOFException.class, () -> loadSnapshot(hugeLength));
+    }
+
+    @Test
+    void growthAfterShrinkingDoesNotMoveOldTableAtOnce() {
+        var hashTable = new HashTable(0, 0.5f);
+        for (int i = 0; i < 5000; i++) {
+            hashTable.put(Integer.toString(i), "a");
+        }
+        long resizeCount = hashTable.stats().getResizeCount();
+        int removed = 0;
+        while (hashTable.stats().getResizeCount() == resizeCount) {
+            hashTable.remove(Integer.toString(removed++));
+        }
+
+        //puts go on until the next resize, which has to find the shrinking finished
+        resizeCount = hashTable.stats().getResizeCount();
+        for (int i = 5000; ; i++) {
+            boolean rehashing = hashTable.isRehashing();
+            hashTable.put(Integer.toString(i), "a");
+            if (hashTable.stats().getResizeCount() != resizeCount) {
+                assertFalse(rehashing);
+                break;
+            }
+        }
+    }
+
+    @Test
+    void shrinksAfterMassRemoval() {
+        for (int i = 0; i < 100_000; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        assertEquals(131_072, t.stats().getCapacity());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals("a", t.remove(Integer.toString(i)));
+        }
+        //shrinking continues on any operation while it has not reached the bottom
+        for (int i = 0; i < 100_000; i++) {
+            assertFalse(t.contains("a"));
+        }
+        assertEquals(0, t.size());
+        assertEquals(1, t.stats().getCapacity());
+        t.put("a", "b");
+        assertEquals("b", t.get("a"));
+    }
+
+    @Test
+    void shrinkingKeepsElements() {
+        for (int i = 0; i < 100_000; i++) {
+            t.put(Integer.toString(i), Integer.toString(i));
+        }
+        for (int i = 0; i < 100_000; i++) {
+            if (i % 100 != 0) {
+                t.remove(Integer.toString(i));
+            }
+            if (i % 1000 == 0) {
+                assertEquals(Integer.toString(i), t.get(Integer.toString(i)));
+            }
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i % 100 == 0, t.contains(Integer.toString(i)));
+        }
+        assertEquals(1000, t.size());
+        HashTableStats stats = t.stats();
+        assertTrue(stats.getCapacity() <= 4 * 1000, "capacity " + stats.getCapacity());
+        assertTrue(stats.getLoadFactor() <= 1);
+    }
+
+    @Test
+    void doesNotShrinkBelowInitialCapacity() {
+        t = new HashTable(1000, 1);
+        for (int i = 0; i < 10_000; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            t.remove(Integer.toString(i));
+            t.contains("a");
+        }
+        assertEquals(1001, t.stats().getCapacity());
+    }
+
+    @Test
+    void shrinkingCanBeTurnedOff() {
+        t = new HashTable(0, 1, 0);
+        for (int i = 0; i < 10_000; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        int capacity = t.stats().getCapacity();
+        for (int i = 0; i < 10_000; i++) {
+            t.remove(Integer.toString(i));
+        }
+        assertEquals(capacity, t.stats().getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new HashTable(0, 1, 0.5f));
+        assertThrows(IllegalArgumentException.class, () -> new HashTable(0, 1, -0.1f));
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Test
+    void heapReturnsAfterChurn() throws InterruptedException {
+        long baseline = usedMemory();
+        for (int i = 0; i < 1_000_000; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        long full = usedMemory();
+        for (int i = 0; i < 1_000_000; i++) {
+            t.remove(Integer.toString(i));
+        }
+        for (int i = 0; i < 1_000_000; i++) {
+            t.contains("a");
+        }
+        long purged = usedMemory();
+        assertEquals(1, t.stats().getCapacity());
+        assertTrue(purged - baseline < (full - baseline) / 20,
+                "baseline " + baseline + ", full " + full + ", after removal " + purged);
+    }
+}
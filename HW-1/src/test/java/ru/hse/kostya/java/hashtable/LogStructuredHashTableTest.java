@@ -0,0 +1,373 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogStructuredHashTableTest {
+
+    private Path directory;
+    private LogStructuredHashTable t;
+
+    @BeforeEach
+    void openStore() throws IOException {
+        directory = Files.createTempDirectory("log-structured");
+        t = new LogStructuredHashTable(directory, 1024);
+    }
+
+    @AfterEach
+    void deleteStore() throws IOException {
+        t.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private void reopen() throws IOException {
+        t.close();
+        t = new LogStructuredHashTable(directory, 1024);
+    }
+
+    private long countFiles(String glob) throws IOException {
+        long result = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, glob)) {
+            for (Path ignored : files) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void size() {
+        assertEquals(0, t.size());
+        t.put("a", "b");
+        assertEquals(1, t.size());
+        t.put("a", "c");
+        assertEquals(1, t.size());
+        t.remove("a");
+        assertEquals(0, t.size());
+    }
+
+    @Test
+    void contains() {
+        assertFalse(t.contains("a"));
+        t.put("a", "b");
+        assertTrue(t.contains("a"));
+    }
+
+    @Test
+    void get() {
+        assertNull(t.get("a"));
+        t.put("a", "b");
+        assertEquals("b", t.get("a"));
+    }
+
+    @Test
+    void put() {
+        t.put("a", "b");
+        assertEquals("b", t.put("a", "c"));
+        assertEquals("c", t.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put("a", null));
+    }
+
+    @Test
+    void remove() {
+        t.put("a", "b");
+        assertNull(t.remove("b"));
+        assertEquals("b", t.remove("a"));
+        assertNull(t.get("a"));
+    }
+
+    @Test
+    void clear() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            t.put(Integer.toString(i), "a");
+        }
+        t.clear();
+        assertEquals(0, t.size());
+        t.put("1", "b");
+        reopen();
+        assertEquals(1, t.size());
+        assertEquals("b", t.get("1"));
+    }
+
+    @Test
+    void closedStoreRejectsOperations() throws IOException {
+        t.close();
+        assertThrows(IllegalStateException.class, () -> t.get("a"));
+        assertThrows(IllegalStateException.class, () -> t.put("a", "b"));
+    }
+
+    @Test
+    void closeFinishesSubmittedCompaction() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i % 10), "value" + i);
+        }
+        var compaction = t.compactInBackground();
+        t.close();
+        assertTrue(compaction.isDone());
+        assertDoesNotThrow(() -> compaction.get());
+
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals(10, t.size());
+        assertEquals("value999", t.get("9"));
+    }
+
+    @Test
+    void closeClosesFilesWhenCompactionFails() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            t.put(Integer.toString(i), "value" + i);
+        }
+        int lastClosed = -1;
+        try (DirectoryStream<Path> hints = Files.newDirectoryStream(directory, "*.hint")) {
+            for (Path hint : hints) {
+                String name = hint.getFileName().toString();
+                lastClosed = Math.max(lastClosed, Integer.parseInt(name.substring(0, name.indexOf('.'))));
+            }
+        }
+        assertTrue(lastClosed >= 0);
+        //compaction output can't be created in place of a directory
+        Path blocker = Files.createDirectory(directory.resolve(String.format("%010d.compact", lastClosed)));
+
+        var compaction = t.compactInBackground();
+        assertThrows(IOException.class, () -> t.close());
+        assertThrows(ExecutionException.class, () -> compaction.get());
+        assertEquals(countFiles("*.data"), countFiles("*.hint"));
+        assertThrows(IllegalStateException.class, () -> t.get("1"));
+
+        Files.delete(blocker);
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals(100, t.size());
+        assertEquals("value99", t.get("99"));
+    }
+
+    @Test
+    void closeRacingWithWritesOnlyRejectsThem() throws IOException, InterruptedException {
+        var failure = new AtomicReference<Throwable>();
+        var writer = new Thread(() -> {
+            try {
+                for (int i = 0; ; i++) {
+                    t.put(Integer.toString(i % 10), "value" + i);
+                }
+            } catch (IllegalStateException expected) {
+                //store is closed
+            } catch (Throwable exception) {
+                failure.set(exception);
+            }
+        });
+        writer.start();
+        Thread.sleep(50);
+        t.close();
+        writer.join();
+        assertNull(failure.get());
+    }
+
+    @Test
+    void survivesReopen() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i), "value" + i);
+        }
+        for (int i = 0; i < 1000; i += 3) {
+            t.remove(Integer.toString(i));
+        }
+        t.put("1", "changed");
+        reopen();
+
+        assertEquals(666, t.size());
+        assertEquals("changed", t.get("1"));
+        for (int i = 2; i < 1000; i++) {
+            assertEquals(i % 3 == 0 ? null : "value" + i, t.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void recoversWithoutHints() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i % 100), "value" + i);
+        }
+        t.close();
+        try (DirectoryStream<Path> hints = Files.newDirectoryStream(directory, "*.hint")) {
+            for (Path hint : hints) {
+                Files.delete(hint);
+            }
+        }
+
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals(100, t.size());
+        for (int i = 900; i < 1000; i++) {
+            assertEquals("value" + i, t.get(Integer.toString(i % 100)));
+        }
+    }
+
+    private void damageHints(int keptLength) throws IOException {
+        try (DirectoryStream<Path> hints = Files.newDirectoryStream(directory, "*.hint")) {
+            for (Path hint : hints) {
+                byte[] content = Files.readAllBytes(hint);
+                Files.write(hint, Arrays.copyOf(content, Math.min(keptLength, content.length)));
+            }
+        }
+    }
+
+    @Test
+    void scansSegmentsWithEmptyHints() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i % 100), "value" + i);
+        }
+        t.close();
+        damageHints(0);
+
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals(100, t.size());
+        for (int i = 900; i < 1000; i++) {
+            assertEquals("value" + i, t.get(Integer.toString(i % 100)));
+        }
+    }
+
+    @Test
+    void scansSegmentsWithTruncatedHints() throws IOException {
+        for (int i = 0; i < 1000; i++) {
+            t.put(Integer.toString(i % 100), "value" + i);
+        }
+        t.close();
+        damageHints(20);
+
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals(100, t.size());
+        for (int i = 900; i < 1000; i++) {
+            assertEquals("value" + i, t.get(Integer.toString(i % 100)));
+        }
+        reopen();
+        assertEquals(100, t.size());
+    }
+
+    @Test
+    void keepsUnpairedSurrogatesAcrossReopen() throws IOException {
+        t.put("\uD800x", "\uDC00");
+        t.put("k", "a\uD800");
+        t.put("\u00E9", "\u00FF");
+        reopen();
+
+        assertEquals("\uDC00", t.get("\uD800x"));
+        assertEquals("a\uD800", t.get("k"));
+        assertEquals("\u00FF", t.get("\u00E9"));
+        assertFalse(t.contains("?x"));
+        t.close();
+        damageHints(0);
+
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals(3, t.size());
+        assertEquals("\uDC00", t.get("\uD800x"));
+        assertEquals("a\uD800", t.get("k"));
+        assertFalse(t.contains("?x"));
+    }
+
+    @Test
+    void readsUtf8RecordsOfPreviousVersion() throws IOException {
+        t.close();
+        byte[] key = "\u00E9".getBytes(StandardCharsets.UTF_8);
+        byte[] value = "\u20AC".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(3 * Integer.BYTES + key.length + value.length);
+        record.putInt(0).putInt(key.length).putInt(value.length).put(key).put(value);
+        var crc = new CRC32();
+        crc.update(record.array(), Integer.BYTES, record.capacity() - Integer.BYTES);
+        record.putInt(0, (int) crc.getValue());
+        Files.write(directory.resolve("0000000000.data"), record.array());
+
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals("\u20AC", t.get("\u00E9"));
+        t.put("a", "b");
+        reopen();
+        assertEquals("\u20AC", t.get("\u00E9"));
+        assertEquals("b", t.get("a"));
+    }
+
+    @Test
+    void cutsIncompleteRecordAfterCrash() throws IOException {
+        t.put("a", "b");
+        t.put("c", "d");
+        t.close();
+        Path lastSegment;
+        try (Stream<Path> files = Files.list(directory)) {
+            lastSegment = files.filter(file -> file.toString().endsWith(".data")).max(Path::compareTo).get();
+        }
+        Files.delete(Path.of(lastSegment.toString().replace(".data", ".hint")));
+        //half-written record
+        Files.write(lastSegment, new byte[] {1, 2, 3, 4, 0, 0, 0, 1}, StandardOpenOption.APPEND);
+
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals("b", t.get("a"));
+        assertEquals("d", t.get("c"));
+        t.put("e", "f");
+        reopen();
+        assertEquals("f", t.get("e"));
+        assertEquals(3, t.size());
+    }
+
+    @Test
+    void compactionDropsGarbage() throws IOException, ExecutionException, InterruptedException {
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                t.put(Integer.toString(i), "value" + round);
+            }
+        }
+        for (int i = 0; i < 50; i += 2) {
+            t.remove(Integer.toString(i));
+        }
+        t.compactInBackground().get();
+        assertTrue(countFiles("*.data") <= 3);
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i % 2 == 0 ? null : "value19", t.get(Integer.toString(i)));
+        }
+        reopen();
+        assertEquals(25, t.size());
+        for (int i = 0; i < 50; i++) {
+            assertEquals(i % 2 == 0 ? null : "value19", t.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void writesDuringCompactionArePreserved() throws IOException, ExecutionException, InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            t.put(Integer.toString(i), "old");
+        }
+        var compaction = t.compactInBackground();
+        for (int i = 0; i < 500; i += 2) {
+            t.put(Integer.toString(i), "new");
+        }
+        compaction.get();
+        t.compact();
+        reopen();
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i % 2 == 0 ? "new" : "old", t.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void unfinishedCompactionOutputIsDeleted() throws IOException {
+        t.put("a", "b");
+        t.close();
+        Files.write(directory.resolve("0000000000.compact"), new byte[] {1, 2, 3});
+        t = new LogStructuredHashTable(directory, 1024);
+        assertEquals("b", t.get("a"));
+        assertEquals(0, countFiles("*.compact"));
+    }
+}
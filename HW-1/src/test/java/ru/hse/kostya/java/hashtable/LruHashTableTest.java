@@ -0,0 +1,137 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruHashTableTest {
+
+    private LruHashTable cache;
+    private List<String> evicted;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LruHashTable(3);
+        evicted = new ArrayList<>();
+        cache.setEvictionListener((key, value) -> evicted.add(key + "=" + value));
+    }
+
+    @Test
+    void putGetRemoveWithinBound() {
+        assertNull(cache.put("a", "1"));
+        assertNull(cache.put("b", "2"));
+        assertEquals("1", cache.put("a", "3"));
+        assertEquals(2, cache.size());
+        assertEquals("3", cache.get("a"));
+        assertTrue(cache.contains("b"));
+        assertEquals("2", cache.remove("b"));
+        assertNull(cache.remove("b"));
+        assertFalse(cache.contains("b"));
+        assertEquals(1, cache.size());
+        assertTrue(evicted.isEmpty());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.get("a");
+        cache.put("d", "4");
+
+        assertEquals(3, cache.size());
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("a"));
+        assertEquals(List.of("b=2"), evicted);
+
+        cache.put("c", "5");
+        cache.put("e", "6");
+        assertEquals(List.of("b=2", "a=1"), evicted);
+        assertEquals(2, cache.evictionCount());
+    }
+
+    @Test
+    void containsDoesNotChangeOrder() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        assertTrue(cache.contains("a"));
+        cache.put("d", "4");
+        assertEquals(List.of("a=1"), evicted);
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        assertEquals(2, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void removeAndClearAreNotEvictions() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.remove("a");
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.evictionCount());
+        assertTrue(evicted.isEmpty());
+
+        cache.put("c", "3");
+        assertEquals("3", cache.get("c"));
+    }
+
+    @Test
+    void boundedByWeight() {
+        var weighted = new LruHashTable(18, LruHashTable.CHARACTER_BYTES);
+        weighted.setEvictionListener((key, value) -> evicted.add(key));
+        weighted.put("a", "1234");
+        weighted.put("b", "12");
+        assertEquals(16, weighted.weight());
+
+        weighted.put("c", "123");
+        assertEquals(List.of("a"), evicted);
+        assertEquals(14, weighted.weight());
+
+        weighted.put("b", "1234567");
+        assertEquals(List.of("a", "c"), evicted);
+        assertEquals(16, weighted.weight());
+
+        weighted.put("huge", "123456789");
+        assertEquals(List.of("a", "c", "b", "huge"), evicted);
+        assertEquals(0, weighted.size());
+        assertEquals(0, weighted.weight());
+    }
+
+    @Test
+    void growsBeyondInitialCapacity() {
+        var big = new LruHashTable(1000);
+        for (int i = 0; i < 5000; i++) {
+            big.put("key" + i, "value" + i);
+        }
+        assertEquals(1000, big.size());
+        assertEquals(4000, big.evictionCount());
+        for (int i = 0; i < 4000; i++) {
+            assertFalse(big.contains("key" + i));
+        }
+        for (int i = 4000; i < 5000; i++) {
+            assertEquals("value" + i, big.get("key" + i));
+        }
+    }
+
+    @Test
+    void nullsAndNegativeBoundThrow() {
+        assertThrows(IllegalArgumentException.class, () -> cache.put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> cache.put("a", null));
+        assertThrows(IllegalArgumentException.class, () -> cache.get(null));
+        assertThrows(IllegalArgumentException.class, () -> new LruHashTable(-1));
+    }
+}
@@ -0,0 +1,143 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapHashTableTest {
+
+    private OffHeapHashTable t;
+
+    @BeforeEach
+    void initHashTable() {
+        t = new OffHeapHashTable();
+    }
+
+    @Test
+    void size() {
+        assertEquals(0, t.size());
+        t.put("a", "b");
+        assertEquals(1, t.size());
+        t.put("a", "c");
+        assertEquals(1, t.size());
+        t.remove("a");
+        assertEquals(0, t.size());
+    }
+
+    @Test
+    void contains() {
+        assertFalse(t.contains("a"));
+        t.put("a", "b");
+        assertTrue(t.contains("a"));
+    }
+
+    @Test
+    void get() {
+        assertNull(t.get("a"));
+        t.put("a", "b");
+        assertEquals("b", t.get("a"));
+    }
+
+    @Test
+    void put() {
+        t.put("a", "b");
+        assertEquals("b", t.put("a", "c"));
+        assertEquals("c", t.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put("a", null));
+    }
+
+    @Test
+    void remove() {
+        t.put("a", "b");
+        assertNull(t.remove("b"));
+        assertEquals("b", t.remove("a"));
+        assertNull(t.get("a"));
+    }
+
+    @Test
+    void clear() {
+        t.put("a", "b");
+        t.clear();
+        assertEquals(0, t.size());
+        assertEquals(0, t.allocatedBytes());
+        t.put("a", "c");
+        assertEquals("c", t.get("a"));
+    }
+
+    @Test
+    void nonAsciiAndEmptyStrings() {
+        t.put("", "");
+        t.put("\u043a\u043b\u044e\u0447", "\u0437\u043d\u0430\u0447\u0435\u043d\u0438\u0435");
+        t.put("\ud83d\ude00", "\u0000");
+        assertEquals("", t.get(""));
+        assertEquals("\u0437\u043d\u0430\u0447\u0435\u043d\u0438\u0435", t.get("\u043a\u043b\u044e\u0447"));
+        assertEquals("\u0000", t.get("\ud83d\ude00"));
+    }
+
+    @Test
+    void unpairedSurrogates() {
+        String first = "\uD800\uD81F";
+        String second = "\uD801\uD800";
+        assertEquals(first.hashCode(), second.hashCode());
+        t.put(first, "one");
+        assertNull(t.get(second));
+        assertFalse(t.contains(second));
+        t.put(second, "two");
+        assertEquals(2, t.size());
+        assertEquals("one", t.get(first));
+        assertEquals("two", t.get(second));
+        t.put("key", "\uDC00");
+        assertEquals("\uDC00", t.get("key"));
+    }
+
+    @Test
+    void recordBiggerThanSlab() {
+        String big = "a".repeat(3 << 20);
+        t.put("big", big);
+        t.put("small", "b");
+        assertEquals(big, t.get("big"));
+        assertEquals("b", t.get("small"));
+    }
+
+    @Test
+    void garbageIsCompacted() {
+        String value = "v".repeat(100);
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < 1000; i++) {
+                t.put(Integer.toString(i), value + round);
+            }
+        }
+        //live data is about 100KB, everything else was overwritten
+        assertTrue(t.allocatedBytes() <= 4 << 20);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(value + 49, t.get(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    void behavesLikeChainedHashTable() {
+        var chained = new HashTable();
+        var random = new Random(239);
+        for (int i = 0; i < 100_000; i++) {
+            String key = Integer.toString(random.nextInt(5000));
+            String value = Integer.toString(i);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(chained.put(key, value), t.put(key, value));
+                    break;
+                case 2:
+                    assertEquals(chained.remove(key), t.remove(key));
+                    break;
+                default:
+                    assertEquals(chained.get(key), t.get(key));
+                    assertEquals(chained.contains(key), t.contains(key));
+            }
+            assertEquals(chained.size(), t.size());
+        }
+    }
+}
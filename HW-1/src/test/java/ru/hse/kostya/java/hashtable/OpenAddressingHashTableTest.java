@@ -0,0 +1,109 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAddressingHashTableTest {
+
+    private OpenAddressingHashTable t;
+
+    @BeforeEach
+    void initHashTable() {
+        t = new OpenAddressingHashTable();
+    }
+
+    @Test
+    void size() {
+        assertEquals(0, t.size());
+        t.put("a", "b");
+        assertEquals(1, t.size());
+        t.put("a", "c");
+        assertEquals(1, t.size());
+        t.remove("a");
+        assertEquals(0, t.size());
+    }
+
+    @Test
+    void contains() {
+        assertFalse(t.contains("a"));
+        t.put("a", "b");
+        assertTrue(t.contains("a"));
+    }
+
+    @Test
+    void get() {
+        assertNull(t.get("a"));
+        t.put("a", "b");
+        assertNotNull(t.get("a"));
+        assertEquals("b", t.get("a"));
+    }
+
+    @Test
+    void put() {
+        t.put("a", "b");
+        assertEquals("b", t.get("a"));
+        assertEquals("b", t.put("a", "c"));
+        assertEquals("c", t.get("a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put(null, "a"));
+        assertThrows(IllegalArgumentException.class, () -> t.put("a", null));
+    }
+
+    @Test
+    void remove() {
+        t.put("a", "b");
+        assertNull(t.remove("b"));
+        assertEquals("b", t.remove("a"));
+        assertNull(t.get("a"));
+    }
+
+    @Test
+    void removeKeepsCollidingKeysReachable() {
+        //"Aa" and "BB" have equal hash codes
+        t.put("Aa", "1");
+        t.put("BB", "2");
+        t.put("AaAa", "3");
+        t.put("BBBB", "4");
+        assertEquals("1", t.remove("Aa"));
+        assertEquals("2", t.get("BB"));
+        assertEquals("3", t.remove("AaAa"));
+        assertEquals("4", t.get("BBBB"));
+        assertEquals(2, t.size());
+    }
+
+    @Test
+    void clear() {
+        t.put("a", "b");
+        t.clear();
+        assertEquals(0, t.size());
+        assertFalse(t.contains("a"));
+        t.put("a", "c");
+        assertEquals("c", t.get("a"));
+    }
+
+    @Test
+    void behavesLikeChainedHashTable() {
+        var chained = new HashTable();
+        var random = new Random(239);
+        for (int i = 0; i < 100_000; i++) {
+            String key = Integer.toString(random.nextInt(5000));
+            String value = Integer.toString(i);
+            switch (random.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(chained.put(key, value), t.put(key, value));
+                    break;
+                case 2:
+                    assertEquals(chained.remove(key), t.remove(key));
+                    break;
+                default:
+                    assertEquals(chained.get(key), t.get(key));
+                    assertEquals(chained.contains(key), t.contains(key));
+            }
+            assertEquals(chained.size(), t.size());
+        }
+    }
+}
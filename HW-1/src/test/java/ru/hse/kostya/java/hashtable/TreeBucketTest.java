@@ -0,0 +1,92 @@
+package ru.hse.kostya.java.hashtable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeBucketTest {
+
+    private TreeBucket b;
+
+    @BeforeEach
+    void initTreeBucket() {
+        b = new TreeBucket();
+    }
+
+    @Test
+    void size() {
+        assertEquals(0, b.size());
+        b.put("a", "b");
+        assertEquals(1, b.size());
+        b.put("b", "c");
+        assertEquals(2, b.size());
+        b.put("a", "c");
+        assertEquals(2, b.size());
+    }
+
+    @Test
+    void empty() {
+        assertTrue(b.empty());
+        b.put("a", "b");
+        assertFalse(b.empty());
+    }
+
+    @Test
+    void contains() {
+        assertFalse(b.contains("a"));
+        b.put("a", "b");
+        assertTrue(b.contains("a"));
+    }
+
+    @Test
+    void get() {
+        assertNull(b.get("a"));
+        b.put("a", "b");
+        assertEquals("b", b.get("a"));
+    }
+
+    @Test
+    void put() {
+        b.put("a", "b");
+        assertEquals("b", b.put("a", "c"));
+        assertEquals("c", b.get("a"));
+    }
+
+    @Test
+    void remove() {
+        b.put("a", "b");
+        b.put("b", "c");
+        assertEquals("c", b.remove("b"));
+        assertEquals("b", b.get("a"));
+        assertNull(b.get("b"));
+        assertNull(b.remove("b"));
+    }
+
+    @Test
+    void collidingKeys() {
+        String[] keys = HashTableTest.collidingKeys(4);
+        for (String key : keys) {
+            b.put(key, key);
+        }
+        assertEquals(keys.length, b.size());
+        for (String key : keys) {
+            assertEquals(key, b.get(key));
+        }
+    }
+
+    @Test
+    void popHeadElement() {
+        assertNull(b.popHeadElement());
+        b.put("a", "b");
+        assertEquals("a", b.popHeadElement().getKey());
+        assertNull(b.popHeadElement());
+    }
+
+    @Test
+    void clear() {
+        b.put("a", "b");
+        b.clear();
+        assertTrue(b.empty());
+    }
+}
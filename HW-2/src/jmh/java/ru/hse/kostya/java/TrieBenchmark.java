@@ -0,0 +1,223 @@
+package ru.hse.kostya.java;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups in mutable Trie with lookups in DoubleArrayTrie compiled from it and in ConcurrentTrie.
+ * Run with ./gradlew jmh
+ * Every operation works with word chosen from precomputed sequence,
+ *      so that choosing a word costs nothing
+ * Mixed benchmarks measure throughput of adds, removes and lookups in one and four threads,
+ *      Trie is guarded by a single lock there and DoubleArrayTrie, which can't be modified, only looks up
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TrieBenchmark {
+
+    /**
+     * Length of the sequence of word indices, power of two.
+     */
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"Trie", "DoubleArrayTrie", "ConcurrentTrie"})
+    public String implementation;
+
+    /**
+     * Words present in dictionary.
+     */
+    private String[] words;
+
+    /**
+     * Words absent in dictionary, made the same way as present ones.
+     */
+    private String[] missingWords;
+
+    /**
+     * Prefixes of present words of half their length.
+     */
+    private String[] prefixes;
+
+    /**
+     * Indices of words used by consecutive operations.
+     */
+    private int[] sequence;
+    private int cursor;
+    private Trie trie;
+    private DoubleArrayTrie doubleArrayTrie;
+    private ConcurrentTrie concurrentTrie;
+
+    /**
+     * Sequence of word indices and operations of one thread in mixed benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class ThreadSequence {
+        private int[] sequence;
+        private int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(TrieBenchmark benchmark, ThreadParams threadParams) {
+            var random = new Random(threadParams.getThreadIndex());
+            sequence = new int[SEQUENCE_LENGTH];
+            for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+                sequence[i] = random.nextInt(benchmark.size);
+            }
+        }
+
+        private int nextIndex() {
+            cursor = (cursor + 1) & (SEQUENCE_LENGTH - 1);
+            return sequence[cursor];
+        }
+
+        /**
+         * Operation for the current index: 0 is add, 1 is remove, others are lookups.
+         */
+        private int operation() {
+            return cursor & 3;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new Random(1);
+        trie = new Trie();
+        words = new String[size];
+        prefixes = new String[size];
+        for (int i = 0; i < size; i++) {
+            do {
+                words[i] = makeWord(random);
+            } while (!trie.add(words[i]));
+            prefixes[i] = words[i].substring(0, words[i].length() / 2);
+        }
+        missingWords = new String[size];
+        for (int i = 0; i < size; i++) {
+            do {
+                missingWords[i] = makeWord(random);
+            } while (trie.contains(missingWords[i]));
+        }
+        doubleArrayTrie = trie.compile();
+        concurrentTrie = new ConcurrentTrie();
+        for (String word : words) {
+            concurrentTrie.add(word);
+        }
+
+        sequence = new int[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            sequence[i] = random.nextInt(size);
+        }
+    }
+
+    /**
+     * Lowercase word of length from 4 to 15, letters are not equally likely.
+     */
+    private static String makeWord(Random random) {
+        int length = 4 + random.nextInt(12);
+        var builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            //minimum of two uniform numbers makes first letters more frequent
+            builder.append((char) ('a' + Math.min(random.nextInt(26), random.nextInt(26))));
+        }
+        return builder.toString();
+    }
+
+    private int nextIndex() {
+        cursor = (cursor + 1) & (SEQUENCE_LENGTH - 1);
+        return sequence[cursor];
+    }
+
+    private boolean contains(String word) {
+        switch (implementation) {
+            case "Trie":
+                return trie.contains(word);
+            case "DoubleArrayTrie":
+                return doubleArrayTrie.contains(word);
+            default:
+                return concurrentTrie.contains(word);
+        }
+    }
+
+    @Benchmark
+    public boolean containsHit() {
+        return contains(words[nextIndex()]);
+    }
+
+    @Benchmark
+    public boolean containsMiss() {
+        return contains(missingWords[nextIndex()]);
+    }
+
+    @Benchmark
+    public int howManyStartsWithPrefix() {
+        String prefix = prefixes[nextIndex()];
+        switch (implementation) {
+            case "Trie":
+                return trie.howManyStartsWithPrefix(prefix);
+            case "DoubleArrayTrie":
+                return doubleArrayTrie.howManyStartsWithPrefix(prefix);
+            default:
+                return concurrentTrie.howManyStartsWithPrefix(prefix);
+        }
+    }
+
+    /**
+     * One add, one remove and two lookups out of four operations.
+     */
+    private boolean mixedOperation(ThreadSequence threadSequence) {
+        String word = words[threadSequence.nextIndex()];
+        int operation = threadSequence.operation();
+        switch (implementation) {
+            case "Trie":
+                synchronized (trie) {
+                    return operation == 0 ? trie.add(word)
+                            : operation == 1 ? trie.remove(word) : trie.contains(word);
+                }
+            case "DoubleArrayTrie":
+                return doubleArrayTrie.contains(word);
+            default:
+                return operation == 0 ? concurrentTrie.add(word)
+                        : operation == 1 ? concurrentTrie.remove(word) : concurrentTrie.contains(word);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(1)
+    public boolean mixedOneThread(ThreadSequence threadSequence) {
+        return mixedOperation(threadSequence);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Threads(4)
+    public boolean mixedFourThreads(ThreadSequence threadSequence) {
+        return mixedOperation(threadSequence);
+    }
+
+    /**
+     * Compiles whole Trie, the price of the faster lookups.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DoubleArrayTrie compile() {
+        return trie.compile();
+    }
+}
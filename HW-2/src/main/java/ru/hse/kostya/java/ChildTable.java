@@ -0,0 +1,343 @@
+package ru.hse.kostya.java;
+
+import java.util.Arrays;
+
+/**
+ * Immutable map from chars to children of a tree node.
+ * Modifications return new table, so a table may be shared or published safely
+ * Representation depends on number of children:
+ *      no children is a shared empty table,
+ *      one child is kept inline with its char,
+ *      a few children are sorted char array with parallel array of children,
+ *      many children with close chars are array indexed by char minus the smallest one
+ * Children are visited by slots: slot is position in the table,
+ *      slots go in ascending order of chars, and some of them may be empty
+ */
+abstract class ChildTable<T> {
+
+    /**
+     * Dense representation is used only for more children than this.
+     */
+    private static final int DENSE_MIN_SIZE = 16;
+
+    /**
+     * Dense representation is used only if range of chars is at most this times bigger than size.
+     */
+    private static final int DENSE_MAX_SPAN_RATIO = 3;
+
+    private static final ChildTable<?> EMPTY = new Empty<>();
+
+    @SuppressWarnings("unchecked")
+    static <T> ChildTable<T> empty() {
+        return (ChildTable<T>) EMPTY;
+    }
+
+    /**
+     * Makes table of given children.
+     * @param chars distinct chars in ascending order
+     * @param children children in the same order as chars, not null
+     */
+    static <T> ChildTable<T> of(char[] chars, Object[] children) {
+        int size = chars.length;
+        if (size == 0) {
+            return empty();
+        }
+        if (size == 1) {
+            return new Single<>(chars[0], children[0]);
+        }
+        int span = chars[size - 1] - chars[0] + 1;
+        if (size > DENSE_MIN_SIZE && span <= DENSE_MAX_SPAN_RATIO * size) {
+            var denseChildren = new Object[span];
+            for (int i = 0; i < size; i++) {
+                denseChildren[chars[i] - chars[0]] = children[i];
+            }
+            return new Dense<>(chars[0], denseChildren, size);
+        }
+        return new Sorted<>(chars, children);
+    }
+
+    /**
+     * Number of children.
+     */
+    abstract int size();
+
+    /**
+     * Child by given char, or null if there is no such child.
+     */
+    abstract T get(char c);
+
+    /**
+     * Table with given child added, or replacing child with the same char.
+     */
+    abstract ChildTable<T> with(char c, T child);
+
+    /**
+     * Table without child by given char.
+     */
+    abstract ChildTable<T> without(char c);
+
+    /**
+     * Number of slots. Slots are numbered from zero.
+     */
+    abstract int slotCount();
+
+    /**
+     * Char of given slot.
+     */
+    abstract char charAt(int slot);
+
+    /**
+     * Child in given slot, or null if the slot is empty.
+     */
+    abstract T childAt(int slot);
+
+    /**
+     * Chars of all children in ascending order.
+     */
+    char[] chars() {
+        var chars = new char[size()];
+        int index = 0;
+        for (int slot = 0; slot < slotCount(); slot++) {
+            if (childAt(slot) != null) {
+                chars[index++] = charAt(slot);
+            }
+        }
+        return chars;
+    }
+
+    /**
+     * Children in ascending order of their chars.
+     */
+    Object[] children() {
+        var children = new Object[size()];
+        int index = 0;
+        for (int slot = 0; slot < slotCount(); slot++) {
+            if (childAt(slot) != null) {
+                children[index++] = childAt(slot);
+            }
+        }
+        return children;
+    }
+
+    private static class Empty<T> extends ChildTable<T> {
+
+        @Override
+        int size() {
+            return 0;
+        }
+
+        @Override
+        T get(char c) {
+            return null;
+        }
+
+        @Override
+        ChildTable<T> with(char c, T child) {
+            return new Single<>(c, child);
+        }
+
+        @Override
+        ChildTable<T> without(char c) {
+            return this;
+        }
+
+        @Override
+        int slotCount() {
+            return 0;
+        }
+
+        @Override
+        char charAt(int slot) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        T childAt(int slot) {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+    private static class Single<T> extends ChildTable<T> {
+        private final char c;
+        private final Object child;
+
+        private Single(char c, Object child) {
+            this.c = c;
+            this.child = child;
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T get(char c) {
+            return this.c == c ? (T) child : null;
+        }
+
+        @Override
+        ChildTable<T> with(char c, T child) {
+            if (this.c == c) {
+                return new Single<>(c, child);
+            }
+            return this.c < c
+                    ? new Sorted<>(new char[] {this.c, c}, new Object[] {this.child, child})
+                    : new Sorted<>(new char[] {c, this.c}, new Object[] {child, this.child});
+        }
+
+        @Override
+        ChildTable<T> without(char c) {
+            return this.c == c ? empty() : this;
+        }
+
+        @Override
+        int slotCount() {
+            return 1;
+        }
+
+        @Override
+        char charAt(int slot) {
+            return c;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T childAt(int slot) {
+            return (T) child;
+        }
+    }
+
+    private static class Sorted<T> extends ChildTable<T> {
+        private final char[] chars;
+        private final Object[] children;
+
+        private Sorted(char[] chars, Object[] children) {
+            this.chars = chars;
+            this.children = children;
+        }
+
+        @Override
+        int size() {
+            return chars.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T get(char c) {
+            int index = Arrays.binarySearch(chars, c);
+            return index < 0 ? null : (T) children[index];
+        }
+
+        @Override
+        ChildTable<T> with(char c, T child) {
+            int index = Arrays.binarySearch(chars, c);
+            if (index >= 0) {
+                Object[] newChildren = children.clone();
+                newChildren[index] = child;
+                return new Sorted<>(chars, newChildren);
+            }
+            index = -index - 1;
+            var newChars = new char[chars.length + 1];
+            var newChildren = new Object[chars.length + 1];
+            System.arraycopy(chars, 0, newChars, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newChars[index] = c;
+            newChildren[index] = child;
+            System.arraycopy(chars, index, newChars, index + 1, chars.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, chars.length - index);
+            return of(newChars, newChildren);
+        }
+
+        @Override
+        ChildTable<T> without(char c) {
+            int index = Arrays.binarySearch(chars, c);
+            if (index < 0) {
+                return this;
+            }
+            var newChars = new char[chars.length - 1];
+            var newChildren = new Object[chars.length - 1];
+            System.arraycopy(chars, 0, newChars, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(chars, index + 1, newChars, index, chars.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, chars.length - index - 1);
+            return of(newChars, newChildren);
+        }
+
+        @Override
+        int slotCount() {
+            return chars.length;
+        }
+
+        @Override
+        char charAt(int slot) {
+            return chars[slot];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T childAt(int slot) {
+            return (T) children[slot];
+        }
+    }
+
+    private static class Dense<T> extends ChildTable<T> {
+        private final char first;
+        private final Object[] children;
+        private final int size;
+
+        private Dense(char first, Object[] children, int size) {
+            this.first = first;
+            this.children = children;
+            this.size = size;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T get(char c) {
+            int index = c - first;
+            return index >= 0 && index < children.length ? (T) children[index] : null;
+        }
+
+        @Override
+        ChildTable<T> with(char c, T child) {
+            int index = c - first;
+            if (index >= 0 && index < children.length && children[index] != null) {
+                Object[] newChildren = children.clone();
+                newChildren[index] = child;
+                return new Dense<>(first, newChildren, size);
+            }
+            return new Sorted<T>(chars(), children()).with(c, child);
+        }
+
+        @Override
+        ChildTable<T> without(char c) {
+            if (get(c) == null) {
+                return this;
+            }
+            return new Sorted<T>(chars(), children()).without(c);
+        }
+
+        @Override
+        int slotCount() {
+            return children.length;
+        }
+
+        @Override
+        char charAt(int slot) {
+            return (char) (first + slot);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T childAt(int slot) {
+            return (T) children[slot];
+        }
+    }
+}
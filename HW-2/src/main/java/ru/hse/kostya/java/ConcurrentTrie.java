@@ -0,0 +1,288 @@
+package ru.hse.kostya.java;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *Thread-safe trie with the same interface as Trie, implemented in the way of Ctrie.
+ *Every node of the tree is INode, which refers to immutable MainNode
+ *Modification builds new MainNode and replaces the old one by CAS,
+ *      the CAS is the moment when modification takes effect
+ *Node without strings in subtree is replaced by TombNode and then removed from its parent,
+ *      so operation which meets TombNode helps removing it and starts over
+ *Operations take no locks: add and remove are lock-free, contains is wait-free
+ *Numbers of strings started in nodes and size are updated after the CAS,
+ *      so they are exact when no modification is in progress
+ *      and may lag behind for modifications in progress
+ *howManyStartsWithPrefix and size are wait-free
+ *Non-trivial methods works in linear from input time without contention
+ */
+public class ConcurrentTrie {
+
+    /**
+     * Immutable content of INode.
+     */
+    private interface MainNode {
+    }
+
+    /**
+     * Children of node and whether some string ends here.
+     */
+    private static class ChildrenNode implements MainNode {
+        private final boolean someStringEndsHere;
+        private final ChildTable<INode> tableOfChildren;
+
+        private ChildrenNode(boolean someStringEndsHere, ChildTable<INode> tableOfChildren) {
+            this.someStringEndsHere = someStringEndsHere;
+            this.tableOfChildren = tableOfChildren;
+        }
+    }
+
+    /**
+     * Content of node, which is going to be removed from its parent.
+     * Node with TombNode never changes again
+     */
+    private static class TombNode implements MainNode {
+    }
+
+    private static final TombNode TOMB = new TombNode();
+
+    private static class INode {
+        private static final AtomicReferenceFieldUpdater<INode, MainNode> MAIN_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(INode.class, MainNode.class, "main");
+        private static final AtomicIntegerFieldUpdater<INode> COUNT_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(INode.class, "howManyStartsInNode");
+
+        private volatile MainNode main;
+        private volatile int howManyStartsInNode;
+
+        private INode(MainNode main, int howManyStartsInNode) {
+            this.main = main;
+            this.howManyStartsInNode = howManyStartsInNode;
+        }
+
+        private boolean compareAndSetMain(MainNode expected, MainNode newMain) {
+            return MAIN_UPDATER.compareAndSet(this, expected, newMain);
+        }
+
+        private void addCount(int delta) {
+            COUNT_UPDATER.addAndGet(this, delta);
+        }
+    }
+
+    private final INode root = new INode(new ChildrenNode(false, ChildTable.empty()), 0);
+    private final LongAdder size = new LongAdder();
+
+    public int size() {
+        return (int) size.sum();
+    }
+
+    /**
+     * Descends from root to node corresponding to prefix, without changing anything.
+     * Reads one MainNode per char, so never waits and never retries
+     * @return desired node if it exists and isn't removed and null otherwise
+     */
+    private INode simplifiedGoToNode(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        INode positionNow = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            MainNode main = positionNow.main;
+            if (main == TOMB) {
+                return null;
+            }
+            positionNow = ((ChildrenNode) main).tableOfChildren.get(prefix.charAt(i));
+            if (positionNow == null) {
+                return null;
+            }
+        }
+        return positionNow;
+    }
+
+    /**
+     * Checks whether given string contained in ConcurrentTrie.
+     */
+    public boolean contains(String element) {
+        INode iNode = simplifiedGoToNode(element);
+        if (iNode == null) {
+            return false;
+        }
+        MainNode main = iNode.main;
+        return main != TOMB && ((ChildrenNode) main).someStringEndsHere;
+    }
+
+    /**
+     * Counts number of strings in trie, started with prefix.
+     * Exact if no modification is in progress
+     * if prefix is null returns 0
+     */
+    int howManyStartsWithPrefix(String prefix) {
+        INode iNode = simplifiedGoToNode(prefix);
+        return iNode == null ? 0 : iNode.howManyStartsInNode;
+    }
+
+    /**
+     * Adds given string to ConcurrentTrie.
+     * Missing part of the path is made separately and attached by one CAS
+     * @return false if element is null or ConcurrentTrie contains it already
+     */
+    public boolean add(String element) {
+        if (element == null) {
+            return false;
+        }
+        var path = new ArrayList<INode>();
+        while (true) {
+            path.clear();
+            INode parent = null;
+            INode positionNow = root;
+            int index = 0;
+            while (true) {
+                MainNode main = positionNow.main;
+                if (main == TOMB) {
+                    removeTomb(parent, element.charAt(index - 1), positionNow);
+                    break;
+                }
+                var childrenNode = (ChildrenNode) main;
+                if (index == element.length()) {
+                    if (childrenNode.someStringEndsHere) {
+                        return false;
+                    }
+                    if (positionNow.compareAndSetMain(main, new ChildrenNode(true, childrenNode.tableOfChildren))) {
+                        path.add(positionNow);
+                        afterChange(path, 1);
+                        return true;
+                    }
+                    continue;
+                }
+                char ch = element.charAt(index);
+                INode child = childrenNode.tableOfChildren.get(ch);
+                if (child == null) {
+                    INode branch = makeBranch(element, index + 1);
+                    var newMain = new ChildrenNode(childrenNode.someStringEndsHere,
+                            childrenNode.tableOfChildren.with(ch, branch));
+                    if (positionNow.compareAndSetMain(main, newMain)) {
+                        path.add(positionNow);
+                        afterChange(path, 1);
+                        return true;
+                    }
+                    continue;
+                }
+                path.add(positionNow);
+                parent = positionNow;
+                positionNow = child;
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Makes chain of new nodes for the part of element starting from given index.
+     * Nodes of the chain already count the element
+     */
+    private static INode makeBranch(String element, int from) {
+        var branch = new INode(new ChildrenNode(true, ChildTable.empty()), 1);
+        for (int i = element.length() - 1; i >= from; i--) {
+            branch = new INode(new ChildrenNode(false, ChildTable.<INode>empty().with(element.charAt(i), branch)), 1);
+        }
+        return branch;
+    }
+
+    /**
+     * Removes given string from ConcurrentTrie.
+     * @return false if there is no such element in ConcurrentTrie or element is null and true otherwise
+     * Node, which is left without strings, is replaced by TombNode and removed from its parent
+     */
+    public boolean remove(String element) {
+        if (element == null) {
+            return false;
+        }
+        var path = new ArrayList<INode>();
+        while (true) {
+            path.clear();
+            INode parent = null;
+            INode positionNow = root;
+            int index = 0;
+            while (true) {
+                MainNode main = positionNow.main;
+                if (main == TOMB) {
+                    removeTomb(parent, element.charAt(index - 1), positionNow);
+                    break;
+                }
+                var childrenNode = (ChildrenNode) main;
+                if (index == element.length()) {
+                    if (!childrenNode.someStringEndsHere) {
+                        return false;
+                    }
+                    MainNode newMain = childrenNode.tableOfChildren.size() == 0 && positionNow != root
+                            ? TOMB
+                            : new ChildrenNode(false, childrenNode.tableOfChildren);
+                    if (positionNow.compareAndSetMain(main, newMain)) {
+                        path.add(positionNow);
+                        afterChange(path, -1);
+                        if (newMain == TOMB) {
+                            removeTombs(path, element);
+                        }
+                        return true;
+                    }
+                    continue;
+                }
+                INode child = childrenNode.tableOfChildren.get(element.charAt(index));
+                if (child == null) {
+                    return false;
+                }
+                path.add(positionNow);
+                parent = positionNow;
+                positionNow = child;
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Updates numbers of strings along the path and size after successful CAS.
+     */
+    private void afterChange(ArrayList<INode> path, int delta) {
+        for (INode iNode : path) {
+            iNode.addCount(delta);
+        }
+        size.add(delta);
+    }
+
+    /**
+     * Removes tombs from the end of the path, going up while parents become empty.
+     * Path goes from root to node of element
+     */
+    private void removeTombs(ArrayList<INode> path, String element) {
+        for (int i = path.size() - 1; i > 0 && path.get(i).main == TOMB; i--) {
+            removeTomb(path.get(i - 1), element.charAt(i - 1), path.get(i));
+        }
+    }
+
+    /**
+     * Removes child with TombNode from parent.
+     * Parent left without strings becomes TombNode itself, unless it is root
+     * Does nothing if parent has already changed in a way that child is not there
+     */
+    private void removeTomb(INode parent, char ch, INode child) {
+        while (true) {
+            MainNode main = parent.main;
+            if (main == TOMB) {
+                return;
+            }
+            var childrenNode = (ChildrenNode) main;
+            if (childrenNode.tableOfChildren.get(ch) != child) {
+                return;
+            }
+            ChildTable<INode> tableOfChildren = childrenNode.tableOfChildren.without(ch);
+            MainNode newMain = tableOfChildren.size() == 0 && !childrenNode.someStringEndsHere && parent != root
+                    ? TOMB
+                    : new ChildrenNode(childrenNode.someStringEndsHere, tableOfChildren);
+            if (parent.compareAndSetMain(main, newMain)) {
+                return;
+            }
+        }
+    }
+}
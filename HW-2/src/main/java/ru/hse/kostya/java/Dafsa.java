@@ -0,0 +1,215 @@
+package ru.hse.kostya.java;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ *Immutable minimal acyclic automaton accepting given strings, which shares common suffixes as well as prefixes.
+ *Made by Builder from strings in lexicographic order
+ *Number of strings started with prefix is number of strings accepted from the state after prefix,
+ *      which is the same for all paths into the state, so it is kept in the state
+ *Non-trivial methods works in linear from input time
+ */
+public class Dafsa {
+
+    /**
+     * State of automaton.
+     * States are changed only while they are on the path of the last added string,
+     *      after that they are registered and equal ones are merged
+     */
+    private static class State {
+        private boolean someStringEndsHere;
+        private ChildTable<State> tableOfChildren = ChildTable.empty();
+        private int howManyStartsInState;
+        private int hash;
+
+        private State next(char c) {
+            return tableOfChildren.get(c);
+        }
+
+        /**
+         * Computes number of strings and hash from registered children.
+         */
+        private void freeze() {
+            howManyStartsInState = someStringEndsHere ? 1 : 0;
+            int result = Boolean.hashCode(someStringEndsHere);
+            for (int slot = 0; slot < tableOfChildren.slotCount(); slot++) {
+                State child = tableOfChildren.childAt(slot);
+                if (child != null) {
+                    howManyStartsInState += child.howManyStartsInState;
+                    result = 31 * (31 * result + tableOfChildren.charAt(slot)) + System.identityHashCode(child);
+                }
+            }
+            hash = result;
+        }
+
+        /**
+         * States are equal if they end strings equally and have the same transitions to the same states.
+         * Used only for frozen states, whose children are already unique
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (this == object) {
+                return true;
+            }
+            if (!(object instanceof State)) {
+                return false;
+            }
+            var other = (State) object;
+            return someStringEndsHere == other.someStringEndsHere
+                    && hash == other.hash
+                    && Arrays.equals(tableOfChildren.chars(), other.tableOfChildren.chars())
+                    && sameChildren(tableOfChildren.children(), other.tableOfChildren.children());
+        }
+
+        private static boolean sameChildren(Object[] children, Object[] otherChildren) {
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != otherChildren[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final State root;
+    private final int nodeCount;
+
+    private Dafsa(State root, int nodeCount) {
+        this.root = root;
+        this.nodeCount = nodeCount;
+    }
+
+    public int size() {
+        return root.howManyStartsInState;
+    }
+
+    /**
+     * Number of states including initial one.
+     */
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    private State simplifiedGoToState(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        State positionNow = root;
+        for (int i = 0; i < prefix.length() && positionNow != null; i++) {
+            positionNow = positionNow.next(prefix.charAt(i));
+        }
+        return positionNow;
+    }
+
+    /**
+     * Checks whether given string accepted by Dafsa.
+     */
+    public boolean contains(String element) {
+        State state = simplifiedGoToState(element);
+        return state != null && state.someStringEndsHere;
+    }
+
+    /**
+     * Counts number of strings in Dafsa, started with prefix.
+     * if prefix is null returns 0
+     */
+    int howManyStartsWithPrefix(String prefix) {
+        State state = simplifiedGoToState(prefix);
+        return state == null ? 0 : state.howManyStartsInState;
+    }
+
+    /**
+     * Builds minimal automaton incrementally from strings in lexicographic order.
+     * Only the path of the last string is kept unminimized,
+     *      when the next string leaves that path, the rest of it is merged with equal registered states
+     */
+    public static class Builder {
+        private final State root = new State();
+        private final HashMap<State, State> register = new HashMap<>();
+
+        //states of the last added string after the root, unminimized ones
+        private final ArrayList<State> path = new ArrayList<>();
+        private String previous;
+        private boolean built;
+
+        /**
+         * Adds string, which should be greater than previous added ones.
+         * String equal to the previous one is ignored
+         * @return this builder
+         * @throws IllegalArgumentException if element is null or less than previous added string
+         * @throws IllegalStateException if build() was already called
+         */
+        public Builder add(String element) {
+            if (built) {
+                throw new IllegalStateException("Dafsa is already built");
+            }
+            if (element == null) {
+                throw new IllegalArgumentException("element cannot be null");
+            }
+            if (previous != null) {
+                int comparison = element.compareTo(previous);
+                if (comparison < 0) {
+                    throw new IllegalArgumentException("strings are not sorted: \"" + element
+                            + "\" goes after \"" + previous + "\"");
+                }
+                if (comparison == 0) {
+                    return this;
+                }
+            }
+
+            int common = 0;
+            while (common < path.size() && common < element.length()
+                    && element.charAt(common) == previous.charAt(common)) {
+                common++;
+            }
+            minimize(common);
+            State positionNow = common == 0 ? root : path.get(common - 1);
+            for (int i = common; i < element.length(); i++) {
+                var state = new State();
+                positionNow.tableOfChildren = positionNow.tableOfChildren.with(element.charAt(i), state);
+                path.add(state);
+                positionNow = state;
+            }
+            positionNow.someStringEndsHere = true;
+            previous = element;
+            return this;
+        }
+
+        /**
+         * Minimizes the rest of the path and makes Dafsa.
+         * Builder can't be used afterwards
+         */
+        public Dafsa build() {
+            if (built) {
+                throw new IllegalStateException("Dafsa is already built");
+            }
+            built = true;
+            minimize(0);
+            root.freeze();
+            return new Dafsa(root, register.size() + 1);
+        }
+
+        /**
+         * Replaces states of the path deeper than given length by equal registered ones,
+         *      or registers them if there are no such.
+         */
+        private void minimize(int length) {
+            for (int i = path.size() - 1; i >= length; i--) {
+                State state = path.remove(i);
+                State parent = i == 0 ? root : path.get(i - 1);
+                state.freeze();
+                State registered = register.putIfAbsent(state, state);
+                if (registered != null) {
+                    parent.tableOfChildren = parent.tableOfChildren.with(previous.charAt(i), registered);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package ru.hse.kostya.java;
+
+import java.util.Arrays;
+
+/**
+ *Immutable trie packed into parallel int arrays, made by Trie.compile().
+ *Every node is a state, root is state zero
+ *Child of state s by char c is state t = base[s] + c, which exists only if check[t] == s,
+ *      so every step of descending is two array reads
+ *Non-trivial methods works in linear from input time
+ */
+public class DoubleArrayTrie {
+
+    private static final int ROOT = 0;
+
+    /**
+     * Marks position, which is not a state.
+     */
+    private static final int FREE = -1;
+
+    /**
+     * Check of root, which differs from every state and from FREE.
+     */
+    private static final int NO_PARENT = -2;
+
+    private final int size;
+    private final int[] base;
+    private final int[] check;
+
+    //number of strings started in state
+    private final int[] count;
+    private final boolean[] terminal;
+
+    private DoubleArrayTrie(int size, int[] base, int[] check, int[] count, boolean[] terminal) {
+        this.size = size;
+        this.base = base;
+        this.check = check;
+        this.count = count;
+        this.terminal = terminal;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Descends from root along given string.
+     * @return state corresponding to string, or FREE if there is no such state
+     */
+    private int goToState(String string) {
+        int state = ROOT;
+        for (int i = 0; i < string.length(); i++) {
+            int next = base[state] + string.charAt(i);
+            if (next >= check.length || check[next] != state) {
+                return FREE;
+            }
+            state = next;
+        }
+        return state;
+    }
+
+    /**
+     * Checks whether given string contained in DoubleArrayTrie.
+     */
+    public boolean contains(String element) {
+        if (element == null) {
+            return false;
+        }
+        int state = goToState(element);
+        return state != FREE && terminal[state];
+    }
+
+    /**
+     * Counts number of strings in trie, started with prefix.
+     * if prefix is null returns 0
+     */
+    int howManyStartsWithPrefix(String prefix) {
+        if (prefix == null) {
+            return 0;
+        }
+        int state = goToState(prefix);
+        return state == FREE ? 0 : count[state];
+    }
+
+    /**
+     * Length of the arrays, which is number of states plus unused positions between them.
+     */
+    int arrayLength() {
+        return check.length;
+    }
+
+    /**
+     * Places states into arrays one family of children at a time.
+     * Children of a state go to the first base, where positions of all of them are free
+     * Leaves keep zero base, that is safe as check never points to them
+     */
+    static class Builder {
+
+        /**
+         * Searching for free positions starts from the place,
+         *      after which less than this part of positions is occupied.
+         */
+        private static final double DENSE_PART = 0.95;
+
+        private int[] base = new int[1024];
+        private int[] check = new int[1024];
+        private int[] count = new int[1024];
+        private boolean[] terminal = new boolean[1024];
+
+        private int searchFrom = 1;
+        private int usedLength = 1;
+
+        /**
+         * Makes builder with only root state.
+         */
+        Builder(int rootCount, boolean rootTerminal) {
+            Arrays.fill(check, FREE);
+            check[ROOT] = NO_PARENT;
+            count[ROOT] = rootCount;
+            terminal[ROOT] = rootTerminal;
+        }
+
+        /**
+         * Places all children of already placed state.
+         * Must be called at most once for every state
+         * @param chars distinct chars of children in ascending order
+         * @param counts numbers of strings started in children
+         * @param terminals whether some string ends in children
+         * @return states of children in the same order
+         */
+        int[] placeChildren(int state, char[] chars, int[] counts, boolean[] terminals) {
+            var states = new int[chars.length];
+            if (chars.length == 0) {
+                return states;
+            }
+            int newBase = findBase(chars);
+            base[state] = newBase;
+            for (int i = 0; i < chars.length; i++) {
+                int child = newBase + chars[i];
+                check[child] = state;
+                count[child] = counts[i];
+                terminal[child] = terminals[i];
+                states[i] = child;
+            }
+            usedLength = Math.max(usedLength, newBase + chars[chars.length - 1] + 1);
+            return states;
+        }
+
+        /**
+         * Makes DoubleArrayTrie of placed states, arrays are trimmed to used length.
+         */
+        DoubleArrayTrie build(int size) {
+            return new DoubleArrayTrie(size,
+                    Arrays.copyOf(base, usedLength),
+                    Arrays.copyOf(check, usedLength),
+                    Arrays.copyOf(count, usedLength),
+                    Arrays.copyOf(terminal, usedLength));
+        }
+
+        private int findBase(char[] chars) {
+            int occupied = 0;
+            int position = Math.max(searchFrom, chars[0] + 1);
+            while (true) {
+                ensureLength(position + 1);
+                if (check[position] != FREE) {
+                    occupied++;
+                    position++;
+                    continue;
+                }
+                if (occupied >= DENSE_PART * (position - searchFrom + 1)) {
+                    searchFrom = position;
+                }
+                int candidate = position - chars[0];
+                ensureLength(candidate + chars[chars.length - 1] + 1);
+                if (fits(candidate, chars)) {
+                    return candidate;
+                }
+                position++;
+            }
+        }
+
+        private boolean fits(int candidate, char[] chars) {
+            for (char c : chars) {
+                if (check[candidate + c] != FREE) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void ensureLength(int length) {
+            if (length <= check.length) {
+                return;
+            }
+            int oldLength = check.length;
+            int newLength = Math.max(length, 2 * oldLength);
+            base = Arrays.copyOf(base, newLength);
+            check = Arrays.copyOf(check, newLength);
+            count = Arrays.copyOf(count, newLength);
+            terminal = Arrays.copyOf(terminal, newLength);
+            Arrays.fill(check, oldLength, newLength, FREE);
+        }
+    }
+}
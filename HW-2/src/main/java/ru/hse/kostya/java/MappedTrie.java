@@ -0,0 +1,138 @@
+package ru.hse.kostya.java;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *Read-only trie, which answers queries directly from image file written by Trie.saveImage().
+ *Opening maps the file into memory and reads only the header,
+ *      so it takes constant time and processes opening one file share its pages
+ *Image is HEADER_SIZE bytes of header and nodes, root goes first after header
+ *Header is IMAGE_MAGIC, IMAGE_VERSION, size and length of the image
+ *Every node is number of strings started in it, (number of children * 2 + 1 if some string ends here),
+ *      chars on edges to children in ascending order padded to four bytes
+ *      and offsets of children in the same order
+ *Numbers are four bytes, chars are two bytes, both big-endian
+ *Image is trusted, only the header is checked on opening
+ *Non-trivial methods works in time linear from input and logarithmic from number of children
+ */
+public class MappedTrie {
+
+    static final int IMAGE_MAGIC = 0x5452494D;
+    static final int IMAGE_VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private static final int NOT_FOUND = -1;
+
+    private final ByteBuffer image;
+    private final int size;
+
+    private MappedTrie(ByteBuffer image, int size) {
+        this.image = image;
+        this.size = size;
+    }
+
+    /**
+     * Maps image file written by Trie.saveImage().
+     * File may be closed or deleted afterwards, mapping stays valid
+     * @throws IOException if file can't be read or isn't a trie image
+     */
+    public static MappedTrie open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException("not a trie image: wrong length " + length);
+            }
+            ByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (image.getInt(0) != IMAGE_MAGIC) {
+                throw new IOException("not a trie image");
+            }
+            if (image.getInt(4) != IMAGE_VERSION) {
+                throw new IOException("unsupported trie image version " + image.getInt(4));
+            }
+            if (image.getInt(12) != length) {
+                throw new IOException("corrupted trie image: length mismatch");
+            }
+            return new MappedTrie(image, image.getInt(8));
+        }
+    }
+
+    /**
+     * Size of node with given number of children in image.
+     */
+    static int nodeSize(int numberOfChildren) {
+        return 2 * Integer.BYTES + charsSize(numberOfChildren) + Integer.BYTES * numberOfChildren;
+    }
+
+    /**
+     * Size of chars of node with given number of children, padded to four bytes.
+     */
+    static int charsSize(int numberOfChildren) {
+        return (Character.BYTES * numberOfChildren + 3) & ~3;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds offset of child by binary search over chars of node.
+     * @return offset of child or NOT_FOUND if there is no such child
+     */
+    private int next(int node, char c) {
+        int numberOfChildren = image.getInt(node + Integer.BYTES) >>> 1;
+        int chars = node + 2 * Integer.BYTES;
+        int low = 0;
+        int high = numberOfChildren - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleChar = image.getChar(chars + Character.BYTES * middle);
+            if (middleChar < c) {
+                low = middle + 1;
+            } else if (middleChar > c) {
+                high = middle - 1;
+            } else {
+                return image.getInt(chars + charsSize(numberOfChildren) + Integer.BYTES * middle);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Descends from root to node corresponding to string.
+     * @return offset of desired node or NOT_FOUND if there is no such node
+     */
+    private int goToNode(String string) {
+        int node = HEADER_SIZE;
+        for (int i = 0; i < string.length() && node != NOT_FOUND; i++) {
+            node = next(node, string.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Checks whether given string contained in MappedTrie.
+     */
+    public boolean contains(String element) {
+        if (element == null) {
+            return false;
+        }
+        int node = goToNode(element);
+        return node != NOT_FOUND && (image.getInt(node + Integer.BYTES) & 1) != 0;
+    }
+
+    /**
+     * Counts number of strings in trie, started with prefix.
+     * if prefix is null returns 0
+     */
+    int howManyStartsWithPrefix(String prefix) {
+        if (prefix == null) {
+            return 0;
+        }
+        int node = goToNode(prefix);
+        return node == NOT_FOUND ? 0 : image.getInt(node);
+    }
+}
@@ -0,0 +1,377 @@
+package ru.hse.kostya.java;
+
+import java.io.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ *Trie with the same interface as Trie, where chains of nodes with single child
+ *      are collapsed into one edge labelled with a string (radix tree).
+ *Every node except root either has several children or ends some string,
+ *      so number of nodes is at most twice the number of strings
+ *Nodes are split on adding and merged back on removing
+ *Non-trivial methods works in linear from input time
+ */
+public class RadixTrie implements CustomSerializable {
+
+    private static class RadixNode {
+        //label of the edge from parent, empty for root
+        private String label;
+        private int howManyStartsInNode;
+        private boolean someStringEndsHere;
+
+        //children are kept by first char of their labels, which are different
+        private ChildTable<RadixNode> tableOfChildren = ChildTable.empty();
+
+        private RadixNode(String label) {
+            this.label = label;
+        }
+
+        private RadixNode next(char c) {
+            return tableOfChildren.get(c);
+        }
+
+        private void setChild(RadixNode radixNode) {
+            tableOfChildren = tableOfChildren.with(radixNode.label.charAt(0), radixNode);
+        }
+
+        private void removeChild(RadixNode radixNode) {
+            tableOfChildren = tableOfChildren.without(radixNode.label.charAt(0));
+        }
+
+        /**
+         * Takes place of its only child, concatenating labels.
+         */
+        private void mergeWithChild() {
+            RadixNode child = tableOfChildren.childAt(0);
+            label = label + child.label;
+            howManyStartsInNode = child.howManyStartsInNode;
+            someStringEndsHere = child.someStringEndsHere;
+            tableOfChildren = child.tableOfChildren;
+        }
+    }
+
+    private int size;
+    private RadixNode root = new RadixNode("");
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Length of common prefix of label and part of string starting from given index.
+     */
+    private static int commonPrefixLength(String label, String string, int from) {
+        int length = Math.min(label.length(), string.length() - from);
+        for (int i = 0; i < length; i++) {
+            if (label.charAt(i) != string.charAt(from + i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Descends from root along prefix, without changing anything.
+     * @return the highest node, whose path from root starts with prefix,
+     *      or null if there is no such node
+     */
+    private RadixNode simplifiedGoToNode(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        RadixNode positionNow = root;
+        int index = 0;
+        while (index < prefix.length()) {
+            RadixNode child = positionNow.next(prefix.charAt(index));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefixLength(child.label, prefix, index);
+            if (common < child.label.length() && index + common < prefix.length()) {
+                return null;
+            }
+            index += common;
+            positionNow = child;
+        }
+        return positionNow;
+    }
+
+    /**
+     * Descends from root to node, which path from root is exactly the element.
+     * @return desired node or null if there is no such node
+     */
+    private RadixNode goToExactNode(String element) {
+        RadixNode positionNow = root;
+        int index = 0;
+        while (index < element.length()) {
+            RadixNode child = positionNow.next(element.charAt(index));
+            if (child == null || !element.startsWith(child.label, index)) {
+                return null;
+            }
+            index += child.label.length();
+            positionNow = child;
+        }
+        return positionNow;
+    }
+
+    /**
+     * Adds given string to RadixTrie.
+     * Descends from root, splitting the edge where element leaves it
+     * @return false if element is null or RadixTrie contains it already
+     */
+    public boolean add(String element) {
+        if (element == null || contains(element)) {
+            return false;
+        }
+        RadixNode positionNow = root;
+        root.howManyStartsInNode++;
+        int index = 0;
+        while (index < element.length()) {
+            RadixNode child = positionNow.next(element.charAt(index));
+            if (child == null) {
+                var leaf = new RadixNode(element.substring(index));
+                leaf.howManyStartsInNode = 1;
+                leaf.someStringEndsHere = true;
+                positionNow.setChild(leaf);
+                size++;
+                return true;
+            }
+            int common = commonPrefixLength(child.label, element, index);
+            if (common < child.label.length()) {
+                //element leaves the edge in the middle, so the edge is split there
+                var middle = new RadixNode(child.label.substring(0, common));
+                middle.howManyStartsInNode = child.howManyStartsInNode;
+                child.label = child.label.substring(common);
+                middle.setChild(child);
+                positionNow.setChild(middle);
+                child = middle;
+            }
+            child.howManyStartsInNode++;
+            positionNow = child;
+            index += common;
+        }
+        positionNow.someStringEndsHere = true;
+        size++;
+        return true;
+    }
+
+    /**
+     * Checks whether given string contained in RadixTrie.
+     */
+    public boolean contains(String element) {
+        if (element == null) {
+            return false;
+        }
+        RadixNode radixNode = goToExactNode(element);
+        return radixNode != null && radixNode.someStringEndsHere;
+    }
+
+    /**
+     * Removes given string from RadixTrie.
+     * @return false if there is no such element in RadixTrie or element is null and true otherwise
+     * Deletes node, which contains no strings,
+     *      and merges node, which is left with single child and ends no string, with the child
+     */
+    public boolean remove(String element) {
+        if (element == null || !contains(element)) {
+            return false;
+        }
+        size--;
+        var path = new ArrayList<RadixNode>();
+        RadixNode positionNow = root;
+        int index = 0;
+        while (true) {
+            positionNow.howManyStartsInNode--;
+            path.add(positionNow);
+            if (index == element.length()) {
+                break;
+            }
+            positionNow = positionNow.next(element.charAt(index));
+            index += positionNow.label.length();
+        }
+        positionNow.someStringEndsHere = false;
+
+        if (positionNow == root) {
+            return true;
+        }
+        RadixNode parent = path.get(path.size() - 2);
+        if (positionNow.howManyStartsInNode == 0) {
+            parent.removeChild(positionNow);
+            positionNow = parent;
+        }
+        if (positionNow != root && !positionNow.someStringEndsHere
+                && positionNow.tableOfChildren.size() == 1) {
+            positionNow.mergeWithChild();
+        }
+        return true;
+    }
+
+    /**
+     * Counts number of strings in trie, started with prefix.
+     * Prefix may end in the middle of an edge
+     * if prefix is null returns 0
+     */
+    int howManyStartsWithPrefix(String prefix) {
+        RadixNode radixNode = simplifiedGoToNode(prefix);
+        return radixNode == null ? 0 : radixNode.howManyStartsInNode;
+    }
+
+    /**
+     * Number of nodes including root.
+     * Computed by traversal, so takes linear time
+     */
+    public int nodeCount() {
+        int count = 0;
+        var stack = new ArrayDeque<RadixNode>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            RadixNode radixNode = stack.pop();
+            count++;
+            for (int slot = 0; slot < radixNode.tableOfChildren.slotCount(); slot++) {
+                RadixNode child = radixNode.tableOfChildren.childAt(slot);
+                if (child != null) {
+                    stack.push(child);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Serializes RadixTrie in TrieFormat with RADIX_MAGIC.
+     * Tree is walked iteratively, so long strings don't overflow the stack
+     * Closes given stream
+     */
+    @Override
+    public void serialize(OutputStream out) throws IOException {
+        var checksum = new CRC32();
+        try (var dataOutStream = new DataOutputStream(
+                new BufferedOutputStream(new CheckedOutputStream(out, checksum)))) {
+            dataOutStream.writeInt(TrieFormat.RADIX_MAGIC);
+            TrieFormat.writeVarint(dataOutStream, TrieFormat.VERSION);
+            TrieFormat.writeVarint(dataOutStream, size);
+            var stack = new ArrayDeque<RadixNode>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                RadixNode radixNode = stack.pop();
+                ChildTable<RadixNode> children = radixNode.tableOfChildren;
+                TrieFormat.writeVarint(dataOutStream, children.size() << 1 | (radixNode.someStringEndsHere ? 1 : 0));
+                for (int slot = 0; slot < children.slotCount(); slot++) {
+                    RadixNode child = children.childAt(slot);
+                    if (child != null) {
+                        TrieFormat.writeVarint(dataOutStream, child.label.length());
+                        for (int i = 0; i < child.label.length(); i++) {
+                            TrieFormat.writeVarint(dataOutStream, child.label.charAt(i));
+                        }
+                    }
+                }
+                //pushed in reverse order to be popped in ascending one
+                for (int slot = children.slotCount() - 1; slot >= 0; slot--) {
+                    if (children.childAt(slot) != null) {
+                        stack.push(children.childAt(slot));
+                    }
+                }
+            }
+            //checksum sees only bytes, which left the buffer
+            dataOutStream.flush();
+            dataOutStream.writeInt((int) checksum.getValue());
+        }
+    }
+
+    /**
+     * Deserializes RadixTrie written by serialize.
+     * Tree is read iteratively into new root, which replaces the old one only if reading succeeds,
+     *      so RadixTrie doesn't change if IOException is thrown
+     * Closes given stream
+     */
+    @Override
+    public void deserialize(InputStream in) throws IOException {
+        var checksum = new CRC32();
+        try (var dataInStream = new DataInputStream(new CheckedInputStream(new BufferedInputStream(in), checksum))) {
+            if (dataInStream.readInt() != TrieFormat.RADIX_MAGIC) {
+                throw new IOException("not a serialized radix trie");
+            }
+            int version = TrieFormat.readVarint(dataInStream);
+            if (version != TrieFormat.VERSION) {
+                throw new IOException("unsupported trie format version " + version);
+            }
+            int newSize = TrieFormat.readVarint(dataInStream);
+
+            var newRoot = new RadixNode("");
+            var preorder = new ArrayList<RadixNode>();
+            var stack = new ArrayDeque<RadixNode>();
+            stack.push(newRoot);
+            while (!stack.isEmpty()) {
+                RadixNode radixNode = stack.pop();
+                preorder.add(radixNode);
+                int header = TrieFormat.readVarint(dataInStream);
+                radixNode.someStringEndsHere = (header & 1) != 0;
+                //checked before allocation, as checksum is known only at the end
+                if (header >>> 1 > TrieFormat.MAX_CHILDREN) {
+                    throw new IOException("corrupted trie: too many children");
+                }
+                var chars = new char[header >>> 1];
+                var children = new RadixNode[chars.length];
+                for (int i = 0; i < chars.length; i++) {
+                    children[i] = new RadixNode(readLabel(dataInStream));
+                    chars[i] = children[i].label.charAt(0);
+                    if (i > 0 && chars[i] <= chars[i - 1]) {
+                        throw new IOException("corrupted trie: children out of order");
+                    }
+                }
+                if (radixNode != newRoot && !radixNode.someStringEndsHere && chars.length < 2) {
+                    throw new IOException("corrupted trie: node with single child ends no string");
+                }
+                radixNode.tableOfChildren = ChildTable.of(chars, children);
+                for (int i = children.length - 1; i >= 0; i--) {
+                    stack.push(children[i]);
+                }
+            }
+            int expectedChecksum = (int) checksum.getValue();
+            if (dataInStream.readInt() != expectedChecksum) {
+                throw new IOException("corrupted trie: checksum mismatch");
+            }
+
+            //children go after parent in preorder, so they are counted first
+            for (int i = preorder.size() - 1; i >= 0; i--) {
+                RadixNode radixNode = preorder.get(i);
+                radixNode.howManyStartsInNode = radixNode.someStringEndsHere ? 1 : 0;
+                ChildTable<RadixNode> children = radixNode.tableOfChildren;
+                for (int slot = 0; slot < children.slotCount(); slot++) {
+                    if (children.childAt(slot) != null) {
+                        radixNode.howManyStartsInNode += children.childAt(slot).howManyStartsInNode;
+                    }
+                }
+            }
+            if (newRoot.howManyStartsInNode != newSize) {
+                throw new IOException("corrupted trie: size mismatch");
+            }
+            root = newRoot;
+            size = newSize;
+        }
+    }
+
+    /**
+     * Reads label of the edge: its length followed by its chars.
+     * Label grows as chars are read, so corrupted length ends with EOFException
+     */
+    private static String readLabel(DataInputStream dataInStream) throws IOException {
+        int length = TrieFormat.readVarint(dataInStream);
+        if (length <= 0) {
+            throw new IOException("corrupted trie: wrong label length");
+        }
+        var label = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            int ch = TrieFormat.readVarint(dataInStream);
+            if (ch > Character.MAX_VALUE) {
+                throw new IOException("corrupted trie: char out of range");
+            }
+            label.append((char) ch);
+        }
+        return label.toString();
+    }
+}
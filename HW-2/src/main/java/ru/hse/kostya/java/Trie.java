@@ -1,7 +1,24 @@
 package ru.hse.kostya.java;
 
 import java.io.*;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
 
 /**
  *Trie implemented as a rooted tree with symbols on edges.
@@ -12,8 +29,9 @@ public class Trie implements CustomSerializable {
     private static class TrieNode {
         private int howManyStartsInNode;
         private boolean someStringEndsHere;
-        private HashMap<Character, TrieNode> tableOfChildren =
-                new HashMap<Character, TrieNode>();
+
+        //representation adapts to number of children, leaves share one empty table
+        private ChildTable<TrieNode> tableOfChildren = ChildTable.empty();
 
         private TrieNode() {}
 
@@ -22,44 +40,27 @@ public class Trie implements CustomSerializable {
         }
 
         private void setChild(char c, TrieNode trieNode) {
-            tableOfChildren.put(c, trieNode);
+            tableOfChildren = tableOfChildren.with(c, trieNode);
         }
 
         private void removeChild(char c) {
-            tableOfChildren.remove(c);
-        }
-
-        //Trie Node doesn't implement CustomSerializable
-        //Cause it is more comfortable to work with ObjectStreams
-        //And it is private so it doesn't matter outside Trie class
-        private void serialize(ObjectOutputStream objectOutStream) throws IOException {
-            objectOutStream.writeInt(howManyStartsInNode);
-            objectOutStream.writeBoolean(someStringEndsHere);
-            objectOutStream.writeInt(tableOfChildren.size());
-            for (var element : tableOfChildren.entrySet()) {
-                objectOutStream.writeChar(element.getKey());
-                element.getValue().serialize(objectOutStream);
-            }
-        }
-
-        private void deserialize(ObjectInputStream objectInStream) throws IOException {
-            howManyStartsInNode = objectInStream.readInt();
-            someStringEndsHere = objectInStream.readBoolean();
-            tableOfChildren.clear();
-            int numberOfChildren = objectInStream.readInt();
-            for (int i = 0; i < numberOfChildren; i++) {
-                var trieNode = new TrieNode();
-                char charOnEdge = objectInStream.readChar();
-                tableOfChildren.put(charOnEdge, trieNode);
-                trieNode.deserialize(objectInStream);
-            }
+            tableOfChildren = tableOfChildren.without(c);
         }
     }
 
 
+    /**
+     * Bigger maxEdits of fuzzySearch is clamped to it.
+     * No real distance comes close to it, and maxEdits + 1 with a few more additions can't overflow
+     */
+    private static final int MAX_EDITS = Integer.MAX_VALUE / 2;
+
     private int size;
     private TrieNode root = new TrieNode();
 
+    //number of changes, iterators fail when it differs from what they expect
+    private int modCount;
+
     public int size() {
         return size;
     }
@@ -103,6 +104,7 @@ public class Trie implements CustomSerializable {
         }
         positionNow.someStringEndsHere = true;
         size++;
+        modCount++;
         return true;
     }
 
@@ -124,6 +126,7 @@ public class Trie implements CustomSerializable {
             return false;
         }
         size--;
+        modCount++;
         TrieNode positionNow = root;
         root.howManyStartsInNode--;
         for (char ch : element.toCharArray()) {
@@ -151,31 +154,584 @@ public class Trie implements CustomSerializable {
         return trieNode == null ? 0 : trieNode.howManyStartsInNode;
     }
 
+    /**
+     * Lazy stream of strings started with prefix in lexicographic order.
+     * Memory used depends only on length of strings, not on their number
+     * Stream fails with ConcurrentModificationException if Trie is changed while it is consumed
+     * if prefix is null stream is empty
+     */
+    public Stream<String> wordsStartingWith(String prefix) {
+        var iterator = new WordIterator(prefix, 0);
+        return StreamSupport.stream(Spliterators.spliterator(iterator, iterator.remaining,
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Strings started with prefix in lexicographic order, skipping offset first of them.
+     * Skipping uses numbers of strings in subtrees and takes time proportional to
+     *      length of strings multiplied by number of children of nodes on the way
+     * @return at most limit strings
+     * @throws IllegalArgumentException if offset or limit is negative
+     */
+    public List<String> page(String prefix, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit cannot be negative");
+        }
+        var iterator = new WordIterator(prefix, offset);
+        var result = new ArrayList<String>(Math.min(limit, iterator.remaining));
+        while (result.size() < limit && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    /**
+     * Strings started with prefix in lexicographic order, which are greater than resumeAfter.
+     * Passing the last string of previous page as resumeAfter gives the next page,
+     *      even if Trie was changed between the calls
+     * if resumeAfter is null starts from the first string
+     * @return at most limit strings
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public List<String> page(String prefix, String resumeAfter, int limit) {
+        return page(prefix, resumeAfter == null ? 0 : rank(prefix, resumeAfter), limit);
+    }
 
     /**
-     * Serializes TrieNode.
-     * Implemented by writing all valuable fields
-     * Deserialization of internal tree implemented recursively
-     * Details omitted as changeable
+     * Counts strings started with prefix, which are not greater than given string.
+     */
+    private int rank(String prefix, String string) {
+        TrieNode trieNode = simplifiedGoToNode(prefix);
+        if (trieNode == null || string.compareTo(prefix) < 0) {
+            return 0;
+        }
+        if (!string.startsWith(prefix)) {
+            //string is greater than prefix, but doesn't start with it, so it is greater than all
+            return trieNode.howManyStartsInNode;
+        }
+        int result = 0;
+        for (int i = prefix.length(); i < string.length() && trieNode != null; i++) {
+            char ch = string.charAt(i);
+            if (trieNode.someStringEndsHere) {
+                result++;
+            }
+            ChildTable<TrieNode> children = trieNode.tableOfChildren;
+            for (int slot = 0; slot < children.slotCount() && children.charAt(slot) < ch; slot++) {
+                if (children.childAt(slot) != null) {
+                    result += children.childAt(slot).howManyStartsInNode;
+                }
+            }
+            trieNode = trieNode.next(ch);
+        }
+        if (trieNode != null && trieNode.someStringEndsHere) {
+            result++;
+        }
+        return result;
+    }
+
+    /**
+     * Strings within given Levenshtein distance from query, closest first,
+     *      strings at equal distance in lexicographic order.
+     * Walks the tree depth-first keeping the row of edit distances between query and path to node,
+     *      only 2 * maxEdits + 1 cells of the row near its diagonal are computed
+     * Subtree is skipped as soon as every cell exceeds the allowed distance,
+     *      which becomes smaller when limit strings are found,
+     *      so time depends on the number of nodes close to query, not on size of Trie
+     * maxEdits bigger than MAX_EDITS is clamped to it, so row arithmetic can't overflow
+     * if query is null returns empty list
+     * @return at most limit strings
+     * @throws IllegalArgumentException if maxEdits or limit is negative
+     */
+    public List<String> fuzzySearch(String query, int maxEdits, int limit) {
+        if (maxEdits < 0 || limit < 0) {
+            throw new IllegalArgumentException("maxEdits and limit cannot be negative");
+        }
+        if (query == null || limit == 0) {
+            return new ArrayList<>();
+        }
+        maxEdits = Math.min(maxEdits, MAX_EDITS);
+        //the worst of found strings is on top
+        var found = new PriorityQueue<FuzzyMatch>(FuzzyMatch.ORDER.reversed());
+        var walk = new ArrayDeque<FuzzyFrame>();
+        var word = new StringBuilder();
+        walk.push(new FuzzyFrame(root, levenshteinRow(query, null, (char) 0, 0, maxEdits)));
+        while (!walk.isEmpty()) {
+            FuzzyFrame frame = walk.peek();
+            //words found later are lexicographically greater, so they have to be strictly closer
+            int allowed = found.size() < limit ? maxEdits : found.peek().distance - 1;
+            if (frame.nextSlot == -1) {
+                frame.nextSlot = 0;
+                int distance = frame.row[query.length()];
+                if (frame.trieNode.someStringEndsHere && distance <= allowed) {
+                    found.add(new FuzzyMatch(word.toString(), distance));
+                    if (found.size() > limit) {
+                        found.poll();
+                    }
+                    allowed = found.size() < limit ? maxEdits : found.peek().distance - 1;
+                }
+                int closest = Integer.MAX_VALUE;
+                for (int cell : frame.row) {
+                    closest = Math.min(closest, cell);
+                }
+                if (closest > allowed) {
+                    frame.nextSlot = frame.trieNode.tableOfChildren.slotCount();
+                }
+            }
+            ChildTable<TrieNode> children = frame.trieNode.tableOfChildren;
+            while (frame.nextSlot < children.slotCount() && children.childAt(frame.nextSlot) == null) {
+                frame.nextSlot++;
+            }
+            if (frame.nextSlot < children.slotCount()) {
+                char ch = children.charAt(frame.nextSlot);
+                int[] row = levenshteinRow(query, frame.row, ch, word.length() + 1, maxEdits);
+                word.append(ch);
+                walk.push(new FuzzyFrame(children.childAt(frame.nextSlot), row));
+                frame.nextSlot++;
+            } else {
+                walk.pop();
+                if (!walk.isEmpty()) {
+                    word.setLength(word.length() - 1);
+                }
+            }
+        }
+
+        var result = new ArrayList<FuzzyMatch>(found);
+        result.sort(FuzzyMatch.ORDER);
+        var words = new ArrayList<String>(result.size());
+        for (FuzzyMatch match : result) {
+            words.add(match.word);
+        }
+        return words;
+    }
+
+    /**
+     * Edit distances between prefixes of query and string of given length.
+     * Cells farther than maxEdits from diagonal are maxEdits + 1, which means too far
+     * @param previous row of the string without its last char ch, or null for empty string
+     */
+    private static int[] levenshteinRow(String query, int[] previous, char ch, int length, int maxEdits) {
+        int tooFar = maxEdits + 1;
+        var row = new int[query.length() + 1];
+        Arrays.fill(row, tooFar);
+        if (previous == null) {
+            for (int j = 0; j <= Math.min(query.length(), maxEdits); j++) {
+                row[j] = j;
+            }
+            return row;
+        }
+        row[0] = Math.min(length, tooFar);
+        int from = Math.max(1, length - maxEdits);
+        int to = (int) Math.min(query.length(), (long) length + maxEdits);
+        for (int j = from; j <= to; j++) {
+            int substitution = previous[j - 1] + (query.charAt(j - 1) == ch ? 0 : 1);
+            int deletion = previous[j] + 1;
+            int insertion = row[j - 1] + 1;
+            row[j] = Math.min(tooFar, Math.min(substitution, Math.min(deletion, insertion)));
+        }
+        return row;
+    }
+
+    /**
+     * Node on the path of fuzzySearch with its row of edit distances.
+     */
+    private static class FuzzyFrame {
+        private final TrieNode trieNode;
+        private final int[] row;
+        private int nextSlot = -1;
+
+        private FuzzyFrame(TrieNode trieNode, int[] row) {
+            this.trieNode = trieNode;
+            this.row = row;
+        }
+    }
+
+    private static class FuzzyMatch {
+        private static final Comparator<FuzzyMatch> ORDER =
+                Comparator.<FuzzyMatch>comparingInt(match -> match.distance).thenComparing(match -> match.word);
+
+        private final String word;
+        private final int distance;
+
+        private FuzzyMatch(String word, int distance) {
+            this.word = word;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Depth-first walk over subtree of prefix, which keeps only the path to current node.
+     */
+    private class WordIterator implements Iterator<String> {
+
+        /**
+         * Node on the path and the slot of its next child to visit, or -1 if node itself isn't visited.
+         */
+        private class Frame {
+            private final TrieNode trieNode;
+            private int nextSlot = -1;
+
+            private Frame(TrieNode trieNode) {
+                this.trieNode = trieNode;
+            }
+        }
+
+        private final ArrayDeque<Frame> path = new ArrayDeque<>();
+        private final StringBuilder word;
+        private final int expectedModCount = modCount;
+        private int remaining;
+        private String next;
+
+        /**
+         * Makes iterator over strings started with prefix, skipping offset first of them.
+         */
+        private WordIterator(String prefix, int offset) {
+            word = new StringBuilder(prefix == null ? "" : prefix);
+            TrieNode trieNode = simplifiedGoToNode(prefix);
+            if (trieNode == null || offset >= trieNode.howManyStartsInNode) {
+                return;
+            }
+            remaining = trieNode.howManyStartsInNode - offset;
+            var frame = new Frame(trieNode);
+            path.push(frame);
+            //descends to the node of the first string to return
+            while (offset > 0) {
+                frame.nextSlot = 0;
+                if (frame.trieNode.someStringEndsHere) {
+                    offset--;
+                    if (offset == 0) {
+                        break;
+                    }
+                }
+                ChildTable<TrieNode> children = frame.trieNode.tableOfChildren;
+                while (children.childAt(frame.nextSlot) == null
+                        || children.childAt(frame.nextSlot).howManyStartsInNode <= offset) {
+                    if (children.childAt(frame.nextSlot) != null) {
+                        offset -= children.childAt(frame.nextSlot).howManyStartsInNode;
+                    }
+                    frame.nextSlot++;
+                }
+                word.append(children.charAt(frame.nextSlot));
+                var child = new Frame(children.childAt(frame.nextSlot));
+                frame.nextSlot++;
+                path.push(child);
+                frame = child;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String result = next;
+            next = null;
+            remaining--;
+            return result;
+        }
+
+        /**
+         * Walks to the next node, where some string ends.
+         * @return the string or null if there are no more strings
+         */
+        private String advance() {
+            while (!path.isEmpty()) {
+                Frame frame = path.peek();
+                if (frame.nextSlot == -1) {
+                    frame.nextSlot = 0;
+                    if (frame.trieNode.someStringEndsHere) {
+                        return word.toString();
+                    }
+                }
+                ChildTable<TrieNode> children = frame.trieNode.tableOfChildren;
+                while (frame.nextSlot < children.slotCount() && children.childAt(frame.nextSlot) == null) {
+                    frame.nextSlot++;
+                }
+                if (frame.nextSlot < children.slotCount()) {
+                    word.append(children.charAt(frame.nextSlot));
+                    path.push(new Frame(children.childAt(frame.nextSlot)));
+                    frame.nextSlot++;
+                } else {
+                    path.pop();
+                    if (!path.isEmpty()) {
+                        word.setLength(word.length() - 1);
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Number of nodes including root.
+     * Computed by traversal, so takes linear time
+     */
+    public int nodeCount() {
+        int count = 0;
+        var stack = new ArrayDeque<TrieNode>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            TrieNode trieNode = stack.pop();
+            count++;
+            for (int slot = 0; slot < trieNode.tableOfChildren.slotCount(); slot++) {
+                TrieNode child = trieNode.tableOfChildren.childAt(slot);
+                if (child != null) {
+                    stack.push(child);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Makes immutable DoubleArrayTrie with the same strings.
+     * Later changes of Trie don't affect the result
+     */
+    public DoubleArrayTrie compile() {
+        var builder = new DoubleArrayTrie.Builder(root.howManyStartsInNode, root.someStringEndsHere);
+        var nodes = new ArrayDeque<TrieNode>();
+        var states = new ArrayDeque<Integer>();
+        nodes.add(root);
+        states.add(0);
+        while (!nodes.isEmpty()) {
+            TrieNode trieNode = nodes.poll();
+            int state = states.poll();
+            char[] chars = trieNode.tableOfChildren.chars();
+            Object[] children = trieNode.tableOfChildren.children();
+            var counts = new int[children.length];
+            var terminals = new boolean[children.length];
+            for (int i = 0; i < children.length; i++) {
+                counts[i] = ((TrieNode) children[i]).howManyStartsInNode;
+                terminals[i] = ((TrieNode) children[i]).someStringEndsHere;
+            }
+            int[] childStates = builder.placeChildren(state, chars, counts, terminals);
+            for (int i = 0; i < children.length; i++) {
+                nodes.add((TrieNode) children[i]);
+                states.add(childStates[i]);
+            }
+        }
+        return builder.build(size);
+    }
+
+    /**
+     * Writes image of Trie, which is opened by MappedTrie.open() without reading it.
+     * Nodes are written in breadth-first order, so offsets of children are known in advance
+     * @throws IOException if image is larger than 2 GB or can't be written
+     */
+    public void saveImage(Path path) throws IOException {
+        var nodes = new ArrayList<TrieNode>();
+        nodes.add(root);
+        long length = MappedTrie.HEADER_SIZE;
+        for (int i = 0; i < nodes.size(); i++) {
+            ChildTable<TrieNode> children = nodes.get(i).tableOfChildren;
+            length += MappedTrie.nodeSize(children.size());
+            for (int slot = 0; slot < children.slotCount(); slot++) {
+                if (children.childAt(slot) != null) {
+                    nodes.add(children.childAt(slot));
+                }
+            }
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("trie is too large for image: " + length + " bytes");
+        }
+
+        try (var dataOutStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            dataOutStream.writeInt(MappedTrie.IMAGE_MAGIC);
+            dataOutStream.writeInt(MappedTrie.IMAGE_VERSION);
+            dataOutStream.writeInt(size);
+            dataOutStream.writeInt((int) length);
+            //children are referenced in the same order as they are written
+            int nextChildOffset = MappedTrie.HEADER_SIZE + MappedTrie.nodeSize(root.tableOfChildren.size());
+            for (TrieNode trieNode : nodes) {
+                ChildTable<TrieNode> children = trieNode.tableOfChildren;
+                dataOutStream.writeInt(trieNode.howManyStartsInNode);
+                dataOutStream.writeInt(children.size() << 1 | (trieNode.someStringEndsHere ? 1 : 0));
+                for (int slot = 0; slot < children.slotCount(); slot++) {
+                    if (children.childAt(slot) != null) {
+                        dataOutStream.writeChar(children.charAt(slot));
+                    }
+                }
+                for (int i = Character.BYTES * children.size(); i < MappedTrie.charsSize(children.size()); i++) {
+                    dataOutStream.writeByte(0);
+                }
+                for (int slot = 0; slot < children.slotCount(); slot++) {
+                    TrieNode child = children.childAt(slot);
+                    if (child != null) {
+                        dataOutStream.writeInt(nextChildOffset);
+                        nextChildOffset += MappedTrie.nodeSize(child.tableOfChildren.size());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes Trie in TrieFormat.
+     * Tree is walked iteratively, so long strings don't overflow the stack
+     * Closes given stream
      */
     @Override
     public void serialize(OutputStream out) throws IOException {
-        try (var objectOutStream = new ObjectOutputStream(out)) {
-            objectOutStream.writeInt(size);
-            root.serialize(objectOutStream);
+        var checksum = new CRC32();
+        try (var dataOutStream = new DataOutputStream(
+                new BufferedOutputStream(new CheckedOutputStream(out, checksum)))) {
+            dataOutStream.writeInt(TrieFormat.MAGIC);
+            TrieFormat.writeVarint(dataOutStream, TrieFormat.VERSION);
+            TrieFormat.writeVarint(dataOutStream, size);
+            var stack = new ArrayDeque<TrieNode>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                TrieNode trieNode = stack.pop();
+                ChildTable<TrieNode> children = trieNode.tableOfChildren;
+                TrieFormat.writeVarint(dataOutStream, children.size() << 1 | (trieNode.someStringEndsHere ? 1 : 0));
+                for (int slot = 0; slot < children.slotCount(); slot++) {
+                    if (children.childAt(slot) != null) {
+                        TrieFormat.writeVarint(dataOutStream, children.charAt(slot));
+                    }
+                }
+                //pushed in reverse order to be popped in ascending one
+                for (int slot = children.slotCount() - 1; slot >= 0; slot--) {
+                    if (children.childAt(slot) != null) {
+                        stack.push(children.childAt(slot));
+                    }
+                }
+            }
+            //checksum sees only bytes, which left the buffer
+            dataOutStream.flush();
+            dataOutStream.writeInt((int) checksum.getValue());
         }
     }
 
     /**
-     * Deserialize TrieNode.
-     * Correlates with serialize implementation
-     * Details omitted as changeable
+     * Deserializes Trie written in TrieFormat or in legacy ObjectOutputStream format.
+     * Tree is read iteratively into new root, which replaces the old one only if reading succeeds,
+     *      so Trie doesn't change if IOException is thrown
+     * Closes given stream
      */
     @Override
     public void deserialize(InputStream in) throws IOException {
-        try (var objectInStream = new ObjectInputStream(in)) {
-            size = objectInStream.readInt();
-            root.deserialize(objectInStream);
+        try (var bufferedInStream = new BufferedInputStream(in)) {
+            bufferedInStream.mark(2);
+            int firstBytes = bufferedInStream.read() << 8 | bufferedInStream.read();
+            bufferedInStream.reset();
+            if (firstBytes == TrieFormat.LEGACY_MAGIC) {
+                deserializeLegacy(new ObjectInputStream(bufferedInStream));
+                return;
+            }
+
+            var checksum = new CRC32();
+            var dataInStream = new DataInputStream(new CheckedInputStream(bufferedInStream, checksum));
+            if (dataInStream.readInt() != TrieFormat.MAGIC) {
+                throw new IOException("not a serialized trie");
+            }
+            int version = TrieFormat.readVarint(dataInStream);
+            if (version != TrieFormat.VERSION) {
+                throw new IOException("unsupported trie format version " + version);
+            }
+            int newSize = TrieFormat.readVarint(dataInStream);
+
+            var newRoot = new TrieNode();
+            var preorder = new ArrayList<TrieNode>();
+            var stack = new ArrayDeque<TrieNode>();
+            stack.push(newRoot);
+            while (!stack.isEmpty()) {
+                TrieNode trieNode = stack.pop();
+                preorder.add(trieNode);
+                int header = TrieFormat.readVarint(dataInStream);
+                trieNode.someStringEndsHere = (header & 1) != 0;
+                //checked before allocation, as checksum is known only at the end
+                if (header >>> 1 > TrieFormat.MAX_CHILDREN) {
+                    throw new IOException("corrupted trie: too many children");
+                }
+                var chars = new char[header >>> 1];
+                var children = new TrieNode[chars.length];
+                for (int i = 0; i < chars.length; i++) {
+                    int ch = TrieFormat.readVarint(dataInStream);
+                    if (ch > Character.MAX_VALUE) {
+                        throw new IOException("corrupted trie: char out of range");
+                    }
+                    chars[i] = (char) ch;
+                    if (i > 0 && chars[i] <= chars[i - 1]) {
+                        throw new IOException("corrupted trie: children out of order");
+                    }
+                    children[i] = new TrieNode();
+                }
+                trieNode.tableOfChildren = ChildTable.of(chars, children);
+                for (int i = children.length - 1; i >= 0; i--) {
+                    stack.push(children[i]);
+                }
+            }
+            int expectedChecksum = (int) checksum.getValue();
+            if (dataInStream.readInt() != expectedChecksum) {
+                throw new IOException("corrupted trie: checksum mismatch");
+            }
+
+            //children go after parent in preorder, so they are counted first
+            for (int i = preorder.size() - 1; i >= 0; i--) {
+                TrieNode trieNode = preorder.get(i);
+                trieNode.howManyStartsInNode = trieNode.someStringEndsHere ? 1 : 0;
+                ChildTable<TrieNode> children = trieNode.tableOfChildren;
+                for (int slot = 0; slot < children.slotCount(); slot++) {
+                    if (children.childAt(slot) != null) {
+                        trieNode.howManyStartsInNode += children.childAt(slot).howManyStartsInNode;
+                    }
+                }
+            }
+            if (newRoot.howManyStartsInNode != newSize) {
+                throw new IOException("corrupted trie: size mismatch");
+            }
+            root = newRoot;
+            size = newSize;
+            modCount++;
+        }
+    }
+
+    /**
+     * Reads format written by ObjectOutputStream before TrieFormat.
+     * Every node was number of strings started in it, whether some string ends here,
+     *      number of children and, for every child, char on the edge followed by the child
+     */
+    private void deserializeLegacy(ObjectInputStream objectInStream) throws IOException {
+        int newSize = objectInStream.readInt();
+        var newRoot = new TrieNode();
+        var nodes = new ArrayDeque<TrieNode>();
+        var childrenLeft = new ArrayDeque<Integer>();
+        nodes.push(newRoot);
+        childrenLeft.push(readLegacyNode(objectInStream, newRoot));
+        while (!nodes.isEmpty()) {
+            int left = childrenLeft.pop();
+            if (left == 0) {
+                nodes.pop();
+                continue;
+            }
+            childrenLeft.push(left - 1);
+            var trieNode = new TrieNode();
+            nodes.peek().setChild(objectInStream.readChar(), trieNode);
+            nodes.push(trieNode);
+            childrenLeft.push(readLegacyNode(objectInStream, trieNode));
         }
+        root = newRoot;
+        size = newSize;
+        modCount++;
+    }
+
+    /**
+     * Reads fields of one node in legacy format.
+     * @return number of children to be read next
+     */
+    private static int readLegacyNode(ObjectInputStream objectInStream, TrieNode trieNode) throws IOException {
+        trieNode.howManyStartsInNode = objectInStream.readInt();
+        trieNode.someStringEndsHere = objectInStream.readBoolean();
+        return objectInStream.readInt();
     }
 }
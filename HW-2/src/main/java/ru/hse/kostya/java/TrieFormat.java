@@ -0,0 +1,57 @@
+package ru.hse.kostya.java;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary format of serialized Trie.
+ * Serialized Trie is MAGIC, VERSION, size, nodes and CRC32 of everything before it
+ * Nodes go in preorder, children in ascending order of chars on edges
+ * Every node is (number of children * 2 + 1 if some string ends here)
+ *      followed by chars on edges to its children
+ * Numbers and chars are unsigned varints, so ASCII char takes one byte
+ * Numbers of strings started in nodes aren't written, they are sums over subtrees
+ * Streams starting with LEGACY_MAGIC are ObjectOutputStream format of older versions
+ * RadixTrie is written in the same way with RADIX_MAGIC,
+ *      but every char on edge is replaced by label of the edge: its length followed by its chars
+ */
+final class TrieFormat {
+
+    static final int MAGIC = 0x54524945;
+    static final int RADIX_MAGIC = 0x52445854;
+    static final int VERSION = 1;
+
+    /**
+     * Node has at most one child for every char.
+     */
+    static final int MAX_CHILDREN = Character.MAX_VALUE + 1;
+
+    /**
+     * First two bytes of ObjectOutputStream, which were used before MAGIC.
+     */
+    static final int LEGACY_MAGIC = 0xACED;
+
+    private TrieFormat() {
+    }
+
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarint(DataInput in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte current = in.readByte();
+            result |= (current & 0x7F) << shift;
+            if (current >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("corrupted trie: too long varint");
+    }
+}
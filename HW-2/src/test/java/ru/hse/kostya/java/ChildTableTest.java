@@ -0,0 +1,95 @@
+package ru.hse.kostya.java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChildTableTest {
+
+    private static void assertSameContent(TreeMap<Character, String> expected, ChildTable<String> table) {
+        assertEquals(expected.size(), table.size());
+        var chars = new StringBuilder();
+        for (int slot = 0; slot < table.slotCount(); slot++) {
+            String child = table.childAt(slot);
+            if (child != null) {
+                assertEquals(expected.get(table.charAt(slot)), child);
+                chars.append(table.charAt(slot));
+            }
+        }
+        var expectedChars = new StringBuilder();
+        expected.keySet().forEach(expectedChars::append);
+        assertEquals(expectedChars.toString(), chars.toString());
+        assertArrayEquals(expectedChars.toString().toCharArray(), table.chars());
+        assertArrayEquals(expected.values().toArray(), table.children());
+    }
+
+    @Test
+    void emptyTable() {
+        ChildTable<String> table = ChildTable.empty();
+        assertEquals(0, table.size());
+        assertEquals(0, table.slotCount());
+        assertNull(table.get('a'));
+        assertSame(table, table.without('a'));
+    }
+
+    @Test
+    void tableIsImmutable() {
+        ChildTable<String> empty = ChildTable.empty();
+        ChildTable<String> one = empty.with('b', "b");
+        ChildTable<String> two = one.with('a', "a");
+        ChildTable<String> replaced = two.with('a', "A");
+        assertNull(empty.get('b'));
+        assertEquals("b", one.get('b'));
+        assertNull(one.get('a'));
+        assertEquals("a", two.get('a'));
+        assertEquals("A", replaced.get('a'));
+        assertEquals(2, replaced.size());
+        assertEquals(1, two.without('b').size());
+        assertEquals(2, two.size());
+    }
+
+    @Test
+    void keepsAscendingOrderInEveryRepresentation() {
+        ChildTable<String> table = ChildTable.empty();
+        var expected = new TreeMap<Character, String>();
+        //dense range of letters, then far chars, which make it sparse
+        for (char c = 'z'; c >= 'a'; c--) {
+            table = table.with(c, String.valueOf(c));
+            expected.put(c, String.valueOf(c));
+            assertSameContent(expected, table);
+        }
+        for (char c : new char[] {'\u0000', '\uffff', '\u1000'}) {
+            table = table.with(c, String.valueOf(c));
+            expected.put(c, String.valueOf(c));
+            assertSameContent(expected, table);
+        }
+        for (char c = 'a'; c <= 'z'; c += 2) {
+            table = table.without(c);
+            expected.remove(c);
+            assertSameContent(expected, table);
+        }
+    }
+
+    @Test
+    void behavesLikeTreeMap() {
+        var random = new Random(17);
+        ChildTable<String> table = ChildTable.empty();
+        var expected = new TreeMap<Character, String>();
+        for (int i = 0; i < 20_000; i++) {
+            char c = (char) (random.nextBoolean() ? 'a' + random.nextInt(40) : random.nextInt(1000));
+            if (random.nextInt(3) == 0) {
+                table = table.without(c);
+                expected.remove(c);
+            } else {
+                table = table.with(c, Integer.toString(i));
+                expected.put(c, Integer.toString(i));
+            }
+            assertEquals(expected.get(c), table.get(c));
+            assertEquals(expected.size(), table.size());
+        }
+        assertSameContent(expected, table);
+    }
+}
@@ -0,0 +1,197 @@
+package ru.hse.kostya.java;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTrieTest {
+
+    private ConcurrentTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new ConcurrentTrie();
+        trie.add("AAAB");
+        trie.add("Aa");
+    }
+
+    /**
+     * Runs given action in numberOfThreads threads simultaneously.
+     * Action receives number of its thread
+     */
+    private static void runInThreads(int numberOfThreads, IntConsumer action) throws InterruptedException {
+        var startLatch = new CountDownLatch(1);
+        var threads = new Thread[numberOfThreads];
+        var errors = new Throwable[numberOfThreads];
+        Arrays.setAll(threads, i -> new Thread(() -> {
+            try {
+                startLatch.await();
+                action.accept(i);
+            } catch (Throwable throwable) {
+                errors[i] = throwable;
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        startLatch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Throwable error : errors) {
+            if (error != null) {
+                throw new AssertionError(error);
+            }
+        }
+    }
+
+    /**
+     * Distinct words over small alphabet, so that they share long prefixes.
+     */
+    private static List<String> makeWords(int count, Random random) {
+        var words = new HashSet<String>();
+        while (words.size() < count) {
+            var builder = new StringBuilder();
+            int length = 1 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                builder.append((char) ('a' + random.nextInt(4)));
+            }
+            words.add(builder.toString());
+        }
+        return new ArrayList<>(words);
+    }
+
+    @Test
+    void size() {
+        assertEquals(0, new ConcurrentTrie().size());
+        assertEquals(2, trie.size());
+        trie.remove("AAAB");
+        assertEquals(1, trie.size());
+    }
+
+    @Test
+    void add() {
+        assertFalse(trie.add(null));
+        assertFalse(trie.add("AAAB"));
+        assertTrue(trie.add(""));
+        assertTrue(trie.add("\u0001\u1000"));
+        assertTrue(trie.contains("\u0001\u1000"));
+        assertTrue(trie.contains(""));
+    }
+
+    @Test
+    void contains() {
+        assertFalse(trie.contains(null));
+        assertTrue(trie.contains("Aa"));
+        assertFalse(trie.contains("AA"));
+        assertFalse(trie.contains(""));
+        assertFalse(new ConcurrentTrie().contains("Aa"));
+    }
+
+    @Test
+    void remove() {
+        assertFalse(trie.remove(null));
+        assertFalse(trie.remove("AA"));
+        assertTrue(trie.remove("Aa"));
+        assertFalse(trie.remove("Aa"));
+        assertTrue(trie.remove("AAAB"));
+        assertFalse(trie.contains("AAAB"));
+        assertEquals(0, trie.howManyStartsWithPrefix(""));
+        assertTrue(trie.add("AAAB"));
+        assertEquals(1, trie.howManyStartsWithPrefix("AAA"));
+    }
+
+    @Test
+    void howManyStartsWithPrefix() {
+        assertEquals(0, trie.howManyStartsWithPrefix(null));
+        assertEquals(0, new ConcurrentTrie().howManyStartsWithPrefix(""));
+        assertEquals(2, trie.howManyStartsWithPrefix("A"));
+        trie.add("AAb");
+        assertEquals(2, trie.howManyStartsWithPrefix("AA"));
+        trie.remove("AAAB");
+        assertEquals(1, trie.howManyStartsWithPrefix("AA"));
+        assertEquals(0, trie.howManyStartsWithPrefix("AAA"));
+    }
+
+    @Test
+    void countsAreExactAfterConcurrentModifications() throws InterruptedException {
+        List<String> words = makeWords(5000, new Random(23));
+        var kept = new HashSet<>(words.subList(0, words.size() / 2));
+        int numberOfThreads = 4;
+        runInThreads(numberOfThreads, thread -> {
+            var random = new Random(thread);
+            var order = new ArrayList<>(words);
+            Collections.shuffle(order, random);
+            for (String word : order) {
+                trie.add(word);
+            }
+            //words of the other half are removed and added again by all threads,
+            //      kept words are added again and must be seen all the time
+            for (int round = 0; round < 3; round++) {
+                Collections.shuffle(order, random);
+                for (String word : order) {
+                    if (kept.contains(word)) {
+                        trie.add(word);
+                        assertTrue(trie.contains(word));
+                    } else {
+                        trie.remove(word);
+                        trie.add(word);
+                    }
+                }
+            }
+            for (String word : order) {
+                if (!kept.contains(word)) {
+                    trie.remove(word);
+                }
+            }
+        });
+
+        var expected = new Trie();
+        kept.forEach(expected::add);
+        kept.add("AAAB");
+        kept.add("Aa");
+        expected.add("AAAB");
+        expected.add("Aa");
+        assertEquals(kept.size(), trie.size());
+        for (String word : words) {
+            assertEquals(kept.contains(word), trie.contains(word));
+            for (int end = 0; end <= word.length(); end++) {
+                String prefix = word.substring(0, end);
+                assertEquals(expected.howManyStartsWithPrefix(prefix), trie.howManyStartsWithPrefix(prefix));
+            }
+        }
+    }
+
+    @Test
+    void readersSeeEveryCompletedAdd() throws InterruptedException {
+        int count = 50_000;
+        runInThreads(3, thread -> {
+            if (thread == 0) {
+                for (int i = 0; i < count; i++) {
+                    trie.add(Integer.toString(i));
+                }
+                return;
+            }
+            //words are added in increasing order, so when some word is seen
+            //      all the previous ones should be seen too
+            int seen = 0;
+            while (seen < count) {
+                if (trie.contains(Integer.toString(seen))) {
+                    assertTrue(trie.contains(Integer.toString(seen / 2)));
+                    assertTrue(trie.contains(Integer.toString(seen / 3)));
+                    seen++;
+                }
+            }
+        });
+    }
+}
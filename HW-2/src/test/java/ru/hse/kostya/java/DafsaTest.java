@@ -0,0 +1,109 @@
+package ru.hse.kostya.java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DafsaTest {
+
+    private static Dafsa build(String... elements) {
+        var builder = new Dafsa.Builder();
+        for (String element : elements) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    @Test
+    void emptyDafsa() {
+        Dafsa dafsa = build();
+        assertEquals(0, dafsa.size());
+        assertEquals(1, dafsa.nodeCount());
+        assertFalse(dafsa.contains(""));
+        assertFalse(dafsa.contains(null));
+        assertEquals(0, dafsa.howManyStartsWithPrefix(""));
+        assertEquals(0, dafsa.howManyStartsWithPrefix(null));
+    }
+
+    @Test
+    void containsAndHowManyStartsWithPrefix() {
+        Dafsa dafsa = build("", "AAAB", "AAb", "Aa", "Aa", "B");
+        assertEquals(5, dafsa.size());
+        assertTrue(dafsa.contains(""));
+        assertTrue(dafsa.contains("AAAB"));
+        assertTrue(dafsa.contains("Aa"));
+        assertTrue(dafsa.contains("B"));
+        assertFalse(dafsa.contains("AA"));
+        assertFalse(dafsa.contains("Ab"));
+        assertFalse(dafsa.contains("AAbB"));
+
+        assertEquals(5, dafsa.howManyStartsWithPrefix(""));
+        assertEquals(3, dafsa.howManyStartsWithPrefix("A"));
+        assertEquals(2, dafsa.howManyStartsWithPrefix("AA"));
+        assertEquals(1, dafsa.howManyStartsWithPrefix("B"));
+        assertEquals(0, dafsa.howManyStartsWithPrefix("C"));
+    }
+
+    @Test
+    void sharesSuffixes() {
+        Dafsa dafsa = build("tap", "taps", "top", "tops");
+        assertEquals(5, dafsa.nodeCount());
+        assertTrue(dafsa.contains("tops"));
+        assertFalse(dafsa.contains("tos"));
+        assertEquals(2, dafsa.howManyStartsWithPrefix("to"));
+    }
+
+    @Test
+    void builderRejectsUnsortedInput() {
+        var builder = new Dafsa.Builder().add("b");
+        assertThrows(IllegalArgumentException.class, () -> builder.add("a"));
+        assertThrows(IllegalArgumentException.class, () -> builder.add(null));
+        builder.add("ba");
+        builder.build();
+        assertThrows(IllegalStateException.class, () -> builder.add("c"));
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+
+    @Test
+    void agreesWithTrie() {
+        var random = new Random(24);
+        String[] stems = new String[300];
+        for (int i = 0; i < stems.length; i++) {
+            stems[i] = Integer.toString(random.nextInt(1 << 20), 36);
+        }
+        String[] suffixes = {"", "s", "ing", "ed", "er", "ers", "tion", "tions"};
+        var words = new TreeSet<String>();
+        for (String stem : stems) {
+            for (String suffix : suffixes) {
+                if (random.nextInt(4) != 0) {
+                    words.add(stem + suffix);
+                }
+            }
+        }
+        var trie = new Trie();
+        var builder = new Dafsa.Builder();
+        for (String word : words) {
+            trie.add(word);
+            builder.add(word);
+        }
+        Dafsa dafsa = builder.build();
+
+        assertEquals(trie.size(), dafsa.size());
+        assertTrue(3 * dafsa.nodeCount() < trie.nodeCount());
+        var queries = new ArrayList<>(words);
+        for (int i = 0; i < 2000; i++) {
+            queries.add(Integer.toString(random.nextInt(1 << 20), 36) + suffixes[random.nextInt(suffixes.length)]);
+        }
+        for (String query : queries) {
+            assertEquals(trie.contains(query), dafsa.contains(query));
+            for (int end = 0; end <= query.length(); end++) {
+                String prefix = query.substring(0, end);
+                assertEquals(trie.howManyStartsWithPrefix(prefix), dafsa.howManyStartsWithPrefix(prefix));
+            }
+        }
+    }
+}
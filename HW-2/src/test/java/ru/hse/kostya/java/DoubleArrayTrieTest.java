@@ -0,0 +1,92 @@
+package ru.hse.kostya.java;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleArrayTrieTest {
+
+    @Test
+    void emptyTrie() {
+        DoubleArrayTrie compiled = new Trie().compile();
+        assertEquals(0, compiled.size());
+        assertFalse(compiled.contains(""));
+        assertFalse(compiled.contains("\u0000"));
+        assertFalse(compiled.contains(null));
+        assertEquals(0, compiled.howManyStartsWithPrefix(""));
+        assertEquals(0, compiled.howManyStartsWithPrefix(null));
+    }
+
+    @Test
+    void containsAndHowManyStartsWithPrefix() {
+        var trie = new Trie();
+        trie.add("AAAB");
+        trie.add("Aa");
+        trie.add("");
+        trie.add("\u0000\uffff");
+        DoubleArrayTrie compiled = trie.compile();
+
+        assertEquals(4, compiled.size());
+        assertTrue(compiled.contains("AAAB"));
+        assertTrue(compiled.contains("Aa"));
+        assertTrue(compiled.contains(""));
+        assertTrue(compiled.contains("\u0000\uffff"));
+        assertFalse(compiled.contains("AA"));
+        assertFalse(compiled.contains("AAABA"));
+        assertFalse(compiled.contains("\u0000"));
+        assertFalse(compiled.contains("\uffff"));
+
+        assertEquals(4, compiled.howManyStartsWithPrefix(""));
+        assertEquals(2, compiled.howManyStartsWithPrefix("A"));
+        assertEquals(1, compiled.howManyStartsWithPrefix("AAA"));
+        assertEquals(1, compiled.howManyStartsWithPrefix("\u0000"));
+        assertEquals(0, compiled.howManyStartsWithPrefix("B"));
+    }
+
+    @Test
+    void laterChangesOfTrieDontAffectCompiled() {
+        var trie = new Trie();
+        trie.add("abc");
+        DoubleArrayTrie compiled = trie.compile();
+        trie.add("abd");
+        trie.remove("abc");
+        assertTrue(compiled.contains("abc"));
+        assertFalse(compiled.contains("abd"));
+        assertEquals(1, compiled.howManyStartsWithPrefix("ab"));
+    }
+
+    @Test
+    void agreesWithTrie() {
+        var random = new Random(19);
+        var trie = new Trie();
+        var added = new HashSet<String>();
+        for (int i = 0; i < 20_000; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                //mostly letters, sometimes far chars
+                builder.append((char) (random.nextInt(20) == 0 ? random.nextInt(5000) : 'a' + random.nextInt(26)));
+            }
+            trie.add(builder.toString());
+            added.add(builder.toString());
+        }
+        DoubleArrayTrie compiled = trie.compile();
+        assertEquals(trie.size(), compiled.size());
+        assertTrue(compiled.arrayLength() < 2 * trie.nodeCount() + 5000);
+        for (String element : added) {
+            assertTrue(compiled.contains(element));
+            for (int end = 0; end <= element.length(); end++) {
+                String prefix = element.substring(0, end);
+                assertEquals(trie.howManyStartsWithPrefix(prefix), compiled.howManyStartsWithPrefix(prefix));
+            }
+        }
+        for (int i = 0; i < 20_000; i++) {
+            String other = Integer.toString(random.nextInt(1_000_000), 36);
+            assertEquals(trie.contains(other), compiled.contains(other));
+            assertEquals(trie.howManyStartsWithPrefix(other), compiled.howManyStartsWithPrefix(other));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ru.hse.kostya.java;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedTrieTest {
+
+    private Path imagePath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imagePath = Files.createTempFile("trie", ".image");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(imagePath);
+    }
+
+    @Test
+    void emptyTrie() throws IOException {
+        new Trie().saveImage(imagePath);
+        MappedTrie mappedTrie = MappedTrie.open(imagePath);
+        assertEquals(0, mappedTrie.size());
+        assertFalse(mappedTrie.contains(""));
+        assertFalse(mappedTrie.contains("a"));
+        assertFalse(mappedTrie.contains(null));
+        assertEquals(0, mappedTrie.howManyStartsWithPrefix(""));
+        assertEquals(0, mappedTrie.howManyStartsWithPrefix(null));
+    }
+
+    @Test
+    void containsAndHowManyStartsWithPrefix() throws IOException {
+        var trie = new Trie();
+        trie.add("AAAB");
+        trie.add("Aa");
+        trie.add("");
+        trie.add("\u0000\uffff");
+        trie.saveImage(imagePath);
+        MappedTrie mappedTrie = MappedTrie.open(imagePath);
+
+        assertEquals(4, mappedTrie.size());
+        assertTrue(mappedTrie.contains("AAAB"));
+        assertTrue(mappedTrie.contains("Aa"));
+        assertTrue(mappedTrie.contains(""));
+        assertTrue(mappedTrie.contains("\u0000\uffff"));
+        assertFalse(mappedTrie.contains("AA"));
+        assertFalse(mappedTrie.contains("AAABA"));
+        assertFalse(mappedTrie.contains("\uffff"));
+
+        assertEquals(4, mappedTrie.howManyStartsWithPrefix(""));
+        assertEquals(2, mappedTrie.howManyStartsWithPrefix("A"));
+        assertEquals(1, mappedTrie.howManyStartsWithPrefix("AAA"));
+        assertEquals(0, mappedTrie.howManyStartsWithPrefix("B"));
+    }
+
+    @Test
+    void openRejectsOtherFiles() throws IOException {
+        Files.write(imagePath, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> MappedTrie.open(imagePath));
+        Files.write(imagePath, new byte[32]);
+        assertThrows(IOException.class, () -> MappedTrie.open(imagePath));
+
+        var trie = new Trie();
+        trie.add("abc");
+        trie.saveImage(imagePath);
+        byte[] truncated = Files.readAllBytes(imagePath);
+        Files.write(imagePath, Arrays.copyOf(truncated, truncated.length - 4));
+        assertThrows(IOException.class, () -> MappedTrie.open(imagePath));
+    }
+
+    @Test
+    void agreesWithTrie() throws IOException {
+        var random = new Random(21);
+        var trie = new Trie();
+        var added = new HashSet<String>();
+        for (int i = 0; i < 20_000; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(10);
+            for (int j = 0; j < length; j++) {
+                //mostly letters, sometimes far chars
+                builder.append((char) (random.nextInt(20) == 0 ? random.nextInt(5000) : 'a' + random.nextInt(26)));
+            }
+            trie.add(builder.toString());
+            added.add(builder.toString());
+        }
+        trie.saveImage(imagePath);
+        MappedTrie mappedTrie = MappedTrie.open(imagePath);
+
+        assertEquals(trie.size(), mappedTrie.size());
+        for (String element : added) {
+            assertTrue(mappedTrie.contains(element));
+            for (int end = 0; end <= element.length(); end++) {
+                String prefix = element.substring(0, end);
+                assertEquals(trie.howManyStartsWithPrefix(prefix), mappedTrie.howManyStartsWithPrefix(prefix));
+            }
+        }
+        for (int i = 0; i < 20_000; i++) {
+            String other = Integer.toString(random.nextInt(1_000_000), 36);
+            assertEquals(trie.contains(other), mappedTrie.contains(other));
+            assertEquals(trie.howManyStartsWithPrefix(other), mappedTrie.howManyStartsWithPrefix(other));
+        }
+    }
+}
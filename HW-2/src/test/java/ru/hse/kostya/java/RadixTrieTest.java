@@ -0,0 +1,222 @@
+package ru.hse.kostya.java;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RadixTrieTest {
+
+    private RadixTrie radixTrie = new RadixTrie();
+    private RadixTrie emptyRadixTrie = new RadixTrie();
+
+    @BeforeEach
+    void setUp() {
+        radixTrie.add("AAAB");
+        radixTrie.add("Aa");
+    }
+
+    @Test
+    void size() {
+        assertEquals(0, emptyRadixTrie.size());
+        assertEquals(2, radixTrie.size());
+        radixTrie.remove("AAAB");
+        assertEquals(1, radixTrie.size());
+    }
+
+    @Test
+    void add() {
+        assertFalse(radixTrie.add(null));
+        assertFalse(radixTrie.add("AAAB"));
+        assertTrue(radixTrie.add(""));
+        assertTrue(radixTrie.add("\u0001\u1000"));
+        assertTrue(radixTrie.contains("\u0001\u1000"));
+    }
+
+    @Test
+    void contains() {
+        assertFalse(radixTrie.contains(null));
+        assertTrue(radixTrie.contains("Aa"));
+        assertFalse(radixTrie.contains("A"));
+        assertFalse(radixTrie.contains("AAA"));
+        assertFalse(radixTrie.contains("AAABC"));
+        assertFalse(emptyRadixTrie.contains("Aa"));
+        assertFalse(emptyRadixTrie.contains(""));
+    }
+
+    @Test
+    void remove() {
+        assertFalse(radixTrie.remove(null));
+        assertFalse(radixTrie.remove("AA"));
+        assertTrue(radixTrie.remove("Aa"));
+        assertFalse(radixTrie.remove("Aa"));
+        assertFalse(emptyRadixTrie.remove("Aa"));
+        assertTrue(radixTrie.contains("AAAB"));
+    }
+
+    @Test
+    void howManyStartsWithPrefix() {
+        assertEquals(0, radixTrie.howManyStartsWithPrefix(null));
+        assertEquals(0, emptyRadixTrie.howManyStartsWithPrefix(""));
+        assertEquals(2, radixTrie.howManyStartsWithPrefix("A"));
+        radixTrie.add("AAb");
+        assertEquals(2, radixTrie.howManyStartsWithPrefix("AA"));
+    }
+
+    @Test
+    void howManyStartsWithPrefixEndingInsideEdge() {
+        emptyRadixTrie.add("/static/images/logo.png");
+        emptyRadixTrie.add("/static/images/icon.png");
+        emptyRadixTrie.add("/static/css/main.css");
+        assertEquals(3, emptyRadixTrie.howManyStartsWithPrefix("/sta"));
+        assertEquals(2, emptyRadixTrie.howManyStartsWithPrefix("/static/im"));
+        assertEquals(1, emptyRadixTrie.howManyStartsWithPrefix("/static/images/lo"));
+        assertEquals(1, emptyRadixTrie.howManyStartsWithPrefix("/static/images/logo.png"));
+        assertEquals(0, emptyRadixTrie.howManyStartsWithPrefix("/static/images/logo.png/"));
+        assertEquals(0, emptyRadixTrie.howManyStartsWithPrefix("/stat1c"));
+        assertEquals(0, emptyRadixTrie.howManyStartsWithPrefix("/static/js"));
+    }
+
+    @Test
+    void nodesSplitAndMerge() {
+        assertEquals(1, emptyRadixTrie.nodeCount());
+        emptyRadixTrie.add("romane");
+        assertEquals(2, emptyRadixTrie.nodeCount());
+        emptyRadixTrie.add("romanus");
+        assertEquals(4, emptyRadixTrie.nodeCount());
+        emptyRadixTrie.add("roman");
+        assertEquals(4, emptyRadixTrie.nodeCount());
+        emptyRadixTrie.add("rubens");
+        assertEquals(6, emptyRadixTrie.nodeCount());
+
+        assertTrue(emptyRadixTrie.remove("rubens"));
+        assertEquals(4, emptyRadixTrie.nodeCount());
+        assertTrue(emptyRadixTrie.remove("roman"));
+        assertEquals(4, emptyRadixTrie.nodeCount());
+        assertTrue(emptyRadixTrie.remove("romanus"));
+        assertEquals(2, emptyRadixTrie.nodeCount());
+        assertTrue(emptyRadixTrie.contains("romane"));
+        assertEquals(1, emptyRadixTrie.howManyStartsWithPrefix("rom"));
+        assertTrue(emptyRadixTrie.remove("romane"));
+        assertEquals(1, emptyRadixTrie.nodeCount());
+    }
+
+    @Test
+    void fewerNodesThanTrieOnPaths() {
+        var trie = new Trie();
+        var random = new Random(3);
+        String[] sections = {"static", "api", "users", "docs", "blog"};
+        for (int i = 0; i < 2000; i++) {
+            String path = "/" + sections[random.nextInt(sections.length)]
+                    + "/" + Integer.toString(random.nextInt(100_000), 36)
+                    + "/index-" + random.nextInt(1000) + ".html";
+            assertEquals(trie.add(path), emptyRadixTrie.add(path));
+        }
+        assertEquals(trie.size(), emptyRadixTrie.size());
+        assertTrue(emptyRadixTrie.nodeCount() <= 2 * emptyRadixTrie.size() + 1);
+        assertTrue(emptyRadixTrie.nodeCount() * 5 < trie.nodeCount());
+    }
+
+    @Test
+    void serializeAndDeserialize() throws IOException {
+        var byteArrayOutputStream = new ByteArrayOutputStream(1000);
+        radixTrie.serialize(byteArrayOutputStream);
+        radixTrie.remove("Aa");
+
+        radixTrie.deserialize(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        assertEquals(2, radixTrie.size());
+        assertTrue(radixTrie.contains("AAAB"));
+        assertTrue(radixTrie.contains("Aa"));
+        assertEquals(2, radixTrie.howManyStartsWithPrefix("A"));
+    }
+
+    @Test
+    void serializesNestedStringsWithoutRecursion() throws IOException {
+        for (int length = 1; length <= 20_000; length++) {
+            emptyRadixTrie.add("a".repeat(length));
+        }
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        emptyRadixTrie.serialize(byteArrayOutputStream);
+        var restored = new RadixTrie();
+        restored.deserialize(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        assertEquals(20_000, restored.size());
+        assertEquals(20_001, restored.nodeCount());
+        assertTrue(restored.contains("a".repeat(20_000)));
+        assertEquals(10_001, restored.howManyStartsWithPrefix("a".repeat(10_000)));
+    }
+
+    @Test
+    void corruptedDataLeavesRadixTrieUnchanged() throws IOException {
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        emptyRadixTrie.add("other");
+        emptyRadixTrie.add("others");
+        emptyRadixTrie.serialize(byteArrayOutputStream);
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length - 6]++;
+        assertThrows(IOException.class, () -> radixTrie.deserialize(new ByteArrayInputStream(corrupted)));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IOException.class, () -> radixTrie.deserialize(new ByteArrayInputStream(truncated)));
+        byte[] hugeLabel = {0x52, 0x44, 0x58, 0x54, 1, 1, 2, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        assertThrows(IOException.class, () -> radixTrie.deserialize(new ByteArrayInputStream(hugeLabel)));
+
+        assertEquals(2, radixTrie.size());
+        assertTrue(radixTrie.contains("AAAB"));
+        assertFalse(radixTrie.contains("other"));
+    }
+
+    @Test
+    void behavesLikeSetOfStrings() throws IOException {
+        var random = new Random(17);
+        var expected = new HashSet<String>();
+        var trie = new Trie();
+        for (int i = 0; i < 50_000; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                builder.append((char) ('a' + random.nextInt(3)));
+            }
+            String element = builder.toString();
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(element), emptyRadixTrie.add(element));
+                trie.add(element);
+            } else {
+                assertEquals(expected.remove(element), emptyRadixTrie.remove(element));
+                trie.remove(element);
+            }
+            assertEquals(expected.size(), emptyRadixTrie.size());
+            if (i % 100 == 0) {
+                assertTrue(emptyRadixTrie.nodeCount() <= 2 * emptyRadixTrie.size() + 1);
+            }
+        }
+        var prefixes = new ArrayList<String>();
+        prefixes.add("");
+        for (int i = 0; i < 200; i++) {
+            prefixes.add(Integer.toString(random.nextInt(3000), 3).replace('0', 'a')
+                    .replace('1', 'b').replace('2', 'c'));
+        }
+        for (String prefix : prefixes) {
+            assertEquals(trie.howManyStartsWithPrefix(prefix), emptyRadixTrie.howManyStartsWithPrefix(prefix));
+            assertEquals(expected.contains(prefix), emptyRadixTrie.contains(prefix));
+        }
+
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        emptyRadixTrie.serialize(byteArrayOutputStream);
+        var restored = new RadixTrie();
+        restored.deserialize(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        assertEquals(expected.size(), restored.size());
+        assertEquals(emptyRadixTrie.nodeCount(), restored.nodeCount());
+        for (String element : expected) {
+            assertTrue(restored.contains(element));
+        }
+    }
+}
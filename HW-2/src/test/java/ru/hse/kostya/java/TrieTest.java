@@ -6,6 +6,16 @@ import org.junit.jupiter.api.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,6 +71,170 @@ class TrieTest {
         assertEquals(2, trie.howManyStartsWithPrefix("AA"));
     }
 
+    @Test
+    void nodeCount() {
+        assertEquals(1, emptyTrie.nodeCount());
+        assertEquals(6, trie.nodeCount());
+        trie.add("AAb");
+        assertEquals(7, trie.nodeCount());
+        trie.remove("AAAB");
+        assertEquals(5, trie.nodeCount());
+    }
+
+    @Test
+    void wordsStartingWith() {
+        trie.add("");
+        trie.add("AAb");
+        trie.add("B");
+        assertEquals(List.of("", "AAAB", "AAb", "Aa", "B"), trie.wordsStartingWith("").collect(Collectors.toList()));
+        assertEquals(List.of("AAAB", "AAb"), trie.wordsStartingWith("AA").collect(Collectors.toList()));
+        assertEquals(List.of("B"), trie.wordsStartingWith("B").collect(Collectors.toList()));
+        assertEquals(0, trie.wordsStartingWith("C").count());
+        assertEquals(0, trie.wordsStartingWith(null).count());
+        assertEquals(0, emptyTrie.wordsStartingWith("").count());
+    }
+
+    @Test
+    void wordsStartingWithFailsAfterModification() {
+        var iterator = trie.wordsStartingWith("").iterator();
+        iterator.next();
+        trie.add("B");
+        assertThrows(ConcurrentModificationException.class, iterator::hasNext);
+    }
+
+    @Test
+    void page() {
+        trie.add("");
+        trie.add("AAb");
+        trie.add("B");
+        assertEquals(List.of("", "AAAB"), trie.page("", 0, 2));
+        assertEquals(List.of("AAb", "Aa"), trie.page("", 2, 2));
+        assertEquals(List.of("B"), trie.page("", 4, 2));
+        assertEquals(List.of(), trie.page("", 5, 2));
+        assertEquals(List.of("AAb"), trie.page("AA", 1, 10));
+        assertEquals(List.of(), trie.page("A", 0, 0));
+
+        assertEquals(List.of("", "AAAB"), trie.page("", null, 2));
+        assertEquals(List.of("AAb", "Aa"), trie.page("", "AAAB", 2));
+        assertEquals(List.of("AAAB", "AAb"), trie.page("", "AAA", 2));
+        assertEquals(List.of("AAAB", "AAb", "Aa"), trie.page("A", "", 5));
+        assertEquals(List.of(), trie.page("A", "B", 5));
+        assertEquals(List.of(), trie.page("A", "Aa", 5));
+
+        assertThrows(IllegalArgumentException.class, () -> trie.page("", -1, 2));
+        assertThrows(IllegalArgumentException.class, () -> trie.page("", 0, -2));
+    }
+
+    @Test
+    void pagesAgreeWithSortedSet() {
+        var random = new Random(22);
+        var expected = new TreeSet<String>();
+        for (int i = 0; i < 5000; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(7);
+            for (int j = 0; j < length; j++) {
+                builder.append((char) ('a' + random.nextInt(4)));
+            }
+            expected.add(builder.toString());
+            emptyTrie.add(builder.toString());
+        }
+        for (String prefix : new String[] {"", "a", "bc", "dddd", "e"}) {
+            List<String> words = expected.stream().filter(word -> word.startsWith(prefix)).collect(Collectors.toList());
+            assertEquals(words, emptyTrie.wordsStartingWith(prefix).collect(Collectors.toList()));
+            for (int offset = 0; offset <= words.size(); offset += 1 + random.nextInt(20)) {
+                assertEquals(words.subList(offset, Math.min(words.size(), offset + 7)), emptyTrie.page(prefix, offset, 7));
+            }
+
+            var pages = new ArrayList<String>();
+            List<String> page = emptyTrie.page(prefix, null, 13);
+            while (!page.isEmpty()) {
+                pages.addAll(page);
+                page = emptyTrie.page(prefix, page.get(page.size() - 1), 13);
+            }
+            assertEquals(words, pages);
+        }
+    }
+
+    @Test
+    void fuzzySearch() {
+        for (String word : new String[] {"kitten", "sitting", "mitten", "kitchen", "bitten", "kit", "smitten"}) {
+            emptyTrie.add(word);
+        }
+        assertEquals(List.of("kitten"), emptyTrie.fuzzySearch("kitten", 0, 10));
+        assertEquals(List.of("kitten", "bitten", "mitten"), emptyTrie.fuzzySearch("kitten", 1, 10));
+        assertEquals(List.of("kitten", "bitten", "mitten", "kitchen", "smitten"), emptyTrie.fuzzySearch("kitten", 2, 10));
+        assertEquals(List.of("kitten", "bitten"), emptyTrie.fuzzySearch("kitten", 2, 2));
+        assertEquals(List.of("kit"), emptyTrie.fuzzySearch("", 3, 10));
+        assertEquals(List.of("sitting"), emptyTrie.fuzzySearch("siting", 1, 10));
+        assertEquals(List.of(), emptyTrie.fuzzySearch("kitten", 2, 0));
+        assertEquals(List.of(), emptyTrie.fuzzySearch(null, 2, 10));
+        assertThrows(IllegalArgumentException.class, () -> emptyTrie.fuzzySearch("kitten", -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> emptyTrie.fuzzySearch("kitten", 1, -1));
+    }
+
+    @Test
+    void fuzzySearchWithHugeMaxEdits() {
+        for (String word : new String[] {"abc", "abd", "hello", "xyz"}) {
+            emptyTrie.add(word);
+        }
+        assertEquals(List.of("abc", "abd", "xyz", "hello"), emptyTrie.fuzzySearch("abc", Integer.MAX_VALUE, 10));
+        assertEquals(List.of("abc", "abd", "xyz"), emptyTrie.fuzzySearch("abc", Integer.MAX_VALUE, 3));
+        assertEquals(List.of("abc", "abd", "xyz", "hello"), emptyTrie.fuzzySearch("", Integer.MAX_VALUE, 10));
+    }
+
+    /**
+     * Plain dynamic programming over whole strings.
+     */
+    private static int editDistance(String first, String second) {
+        var row = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            row[j] = j;
+        }
+        for (int i = 1; i <= first.length(); i++) {
+            int diagonal = row[0];
+            row[0] = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int above = row[j];
+                row[j] = Math.min(Math.min(row[j] + 1, row[j - 1] + 1),
+                        diagonal + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1));
+                diagonal = above;
+            }
+        }
+        return row[second.length()];
+    }
+
+    @Test
+    void fuzzySearchAgreesWithEditDistance() {
+        var random = new Random(25);
+        var words = new TreeSet<String>();
+        for (int i = 0; i < 3000; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                builder.append((char) ('a' + random.nextInt(5)));
+            }
+            words.add(builder.toString());
+            emptyTrie.add(builder.toString());
+        }
+        for (int i = 0; i < 100; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(9);
+            for (int j = 0; j < length; j++) {
+                builder.append((char) ('a' + random.nextInt(6)));
+            }
+            String query = builder.toString();
+            int maxEdits = random.nextInt(4);
+            int limit = 1 + random.nextInt(30);
+            List<String> expected = words.stream()
+                    .filter(word -> editDistance(query, word) <= maxEdits)
+                    .sorted(Comparator.comparingInt((String word) -> editDistance(query, word))
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(limit)
+                    .collect(Collectors.toList());
+            assertEquals(expected, emptyTrie.fuzzySearch(query, maxEdits, limit));
+        }
+    }
+
     @Test
     void serializeAndDeserialize() throws IOException {
         //decided to check them together
@@ -84,4 +258,115 @@ class TrieTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    void serializesLongStringsWithoutRecursion() throws IOException {
+        String longString = "ab".repeat(100_000);
+        trie.add(longString);
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        trie.serialize(byteArrayOutputStream);
+        //one byte per ASCII char and per node header
+        assertTrue(byteArrayOutputStream.size() < 2 * longString.length() + 100);
+
+        var restored = new Trie();
+        restored.deserialize(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        assertEquals(3, restored.size());
+        assertTrue(restored.contains(longString));
+        assertTrue(restored.contains("Aa"));
+        assertEquals(1, restored.howManyStartsWithPrefix("abab"));
+        assertEquals(3, restored.howManyStartsWithPrefix(""));
+    }
+
+    @Test
+    void deserializesLegacyFormat() throws IOException {
+        //{"Aa", "b"} as it was written by ObjectOutputStream
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        try (var objectOutStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutStream.writeInt(2);
+            objectOutStream.writeInt(2);
+            objectOutStream.writeBoolean(false);
+            objectOutStream.writeInt(2);
+            objectOutStream.writeChar('A');
+            objectOutStream.writeInt(1);
+            objectOutStream.writeBoolean(false);
+            objectOutStream.writeInt(1);
+            objectOutStream.writeChar('a');
+            objectOutStream.writeInt(1);
+            objectOutStream.writeBoolean(true);
+            objectOutStream.writeInt(0);
+            objectOutStream.writeChar('b');
+            objectOutStream.writeInt(1);
+            objectOutStream.writeBoolean(true);
+            objectOutStream.writeInt(0);
+        }
+
+        trie.deserialize(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        assertEquals(2, trie.size());
+        assertTrue(trie.contains("Aa"));
+        assertTrue(trie.contains("b"));
+        assertFalse(trie.contains("AAAB"));
+        assertEquals(1, trie.howManyStartsWithPrefix("A"));
+    }
+
+    @Test
+    void corruptedDataLeavesTrieUnchanged() throws IOException {
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        emptyTrie.add("other");
+        emptyTrie.serialize(byteArrayOutputStream);
+        byte[] bytes = byteArrayOutputStream.toByteArray();
+
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length - 6]++;
+        assertThrows(IOException.class, () -> trie.deserialize(new ByteArrayInputStream(corrupted)));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IOException.class, () -> trie.deserialize(new ByteArrayInputStream(truncated)));
+        assertThrows(IOException.class, () -> trie.deserialize(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5})));
+
+        assertEquals(2, trie.size());
+        assertTrue(trie.contains("AAAB"));
+        assertFalse(trie.contains("other"));
+    }
+
+    @Test
+    void corruptedCountsAreRejectedBeforeAllocation() {
+        byte[] tooManyChildren = {0x54, 0x52, 0x49, 0x45, 1, 0,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        assertThrows(IOException.class, () -> trie.deserialize(new ByteArrayInputStream(tooManyChildren)));
+        byte[] charOutOfRange = {0x54, 0x52, 0x49, 0x45, 1, 1, 2, (byte) 0x80, (byte) 0x80, 0x04, 1, 0, 0, 0, 0};
+        assertThrows(IOException.class, () -> trie.deserialize(new ByteArrayInputStream(charOutOfRange)));
+        assertEquals(2, trie.size());
+    }
+
+    @Test
+    void behavesLikeSetOfStrings() throws IOException {
+        var random = new Random(17);
+        var expected = new HashSet<String>();
+        for (int i = 0; i < 50_000; i++) {
+            var builder = new StringBuilder();
+            int length = random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                //mostly letters, sometimes far chars
+                builder.append((char) (random.nextInt(10) == 0 ? random.nextInt(5000) : 'a' + random.nextInt(26)));
+            }
+            String element = builder.toString();
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(element), emptyTrie.add(element));
+            } else {
+                assertEquals(expected.remove(element), emptyTrie.remove(element));
+            }
+            assertEquals(expected.size(), emptyTrie.size());
+        }
+        for (String prefix : new String[] {"", "a", "ab", "q"}) {
+            assertEquals(expected.stream().filter(element -> element.startsWith(prefix)).count(),
+                    emptyTrie.howManyStartsWithPrefix(prefix));
+        }
+
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        emptyTrie.serialize(byteArrayOutputStream);
+        var restored = new Trie();
+        restored.deserialize(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        assertEquals(expected.size(), restored.size());
+        for (String element : expected) {
+            assertTrue(restored.contains(element));
+        }
+    }
+}